@@ -0,0 +1,71 @@
+package benchmark;
+
+import model.dao.DAOFactory;
+import model.dao.DepartmentDao;
+import model.entities.Department;
+import model.services.DepartmentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DepartmentDaoBenchmark {
+
+    private EmbeddedDatabase database;
+    private DepartmentDao departmentDao;
+    private DepartmentService departmentService;
+    private Department existing;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = EmbeddedDatabase.start("department_benchmark", 0);
+        departmentDao = DAOFactory.createDepartmentDAO();
+        departmentService = new DepartmentService();
+        existing = departmentDao.findById(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.stop();
+    }
+
+    @Benchmark
+    public List<Department> findAll() {
+        return departmentDao.findAll();
+    }
+
+    @Benchmark
+    public List<Department> findAllCached() {
+        return departmentService.findAll();
+    }
+
+    @Benchmark
+    public Department findById() {
+        return departmentDao.findById(1 + ThreadLocalRandom.current().nextInt(EmbeddedDatabase.DEPARTMENTS));
+    }
+
+    @Benchmark
+    public Department update() {
+        existing.setName("Department 1");
+        departmentDao.update(existing);
+        return existing;
+    }
+}
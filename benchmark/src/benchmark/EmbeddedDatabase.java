@@ -0,0 +1,171 @@
+package benchmark;
+
+import db.DBException;
+import db.Db;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class EmbeddedDatabase {
+
+    public static final int DEPARTMENTS = 20;
+
+    // the tables as they were before the first migration; everything after comes from the sql/ migrations
+    private static final String[] BASE_SCHEMA = {
+            "CREATE TABLE department ("
+                    + "Id INT NOT NULL AUTO_INCREMENT PRIMARY KEY, "
+                    + "Name VARCHAR(60) DEFAULT NULL)",
+            "CREATE TABLE seller ("
+                    + "Id INT NOT NULL AUTO_INCREMENT PRIMARY KEY, "
+                    + "Name VARCHAR(60) NOT NULL, "
+                    + "Email VARCHAR(100) NOT NULL, "
+                    + "BirthDate DATE NOT NULL, "
+                    + "BaseSalary DOUBLE NOT NULL, "
+                    + "DepartmentId INT NOT NULL, "
+                    + "FOREIGN KEY (DepartmentId) REFERENCES department (Id))"
+    };
+
+    private static final Pattern MIGRATION = Pattern.compile("V(\\d+)__.*\\.sql");
+
+    private final String url;
+
+    private EmbeddedDatabase(String url) {
+        this.url = url;
+    }
+
+    public static EmbeddedDatabase start(String name, int sellers) {
+        String url = "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+                + "CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1";
+        EmbeddedDatabase database = new EmbeddedDatabase(url);
+        database.createSchema();
+        database.seed(sellers);
+        // migrated after seeding, like a production database, so the backfills see the rows
+        database.migrate(Paths.get(System.getProperty("benchmark.migrations", "sql")));
+
+        Properties props = new Properties();
+        props.setProperty("urlDataBase", url);
+        props.setProperty("user", "sa");
+        props.setProperty("password", "");
+        props.setProperty("pool.minSize", "1");
+        props.setProperty("pool.maxSize", "8");
+        Db.configure(props);
+        return database;
+    }
+
+    public void stop() {
+        Db.closeConnectionPool();
+        try (Connection conn = DriverManager.getConnection(url, "sa", "");
+             Statement statement = conn.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        }
+    }
+
+    private void createSchema() {
+        try (Connection conn = DriverManager.getConnection(url, "sa", "");
+             Statement statement = conn.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            for (String ddl : BASE_SCHEMA) {
+                statement.execute(ddl);
+            }
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        }
+    }
+
+    private void seed(int sellers) {
+        Random random = new Random(42);
+        try (Connection conn = DriverManager.getConnection(url, "sa", "")) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement preparedStatement = conn.prepareStatement("INSERT INTO department (Name) VALUES (?)")) {
+                for (int i = 1; i <= DEPARTMENTS; i++) {
+                    preparedStatement.setString(1, "Department " + i);
+                    preparedStatement.addBatch();
+                }
+                preparedStatement.executeBatch();
+            }
+            try (PreparedStatement preparedStatement = conn.prepareStatement(
+                    "INSERT INTO seller (Name, Email, BirthDate, BaseSalary, DepartmentId) VALUES (?, ?, ?, ?, ?)")) {
+                for (int i = 1; i <= sellers; i++) {
+                    preparedStatement.setString(1, "Seller " + Integer.toString(random.nextInt(sellers), 36) + " " + i);
+                    preparedStatement.setString(2, "seller" + i + "@example.com");
+                    preparedStatement.setDate(3, java.sql.Date.valueOf(LocalDate.of(1950, 1, 1).plusDays(random.nextInt(20000))));
+                    preparedStatement.setDouble(4, 1000 + random.nextInt(9000));
+                    preparedStatement.setInt(5, 1 + random.nextInt(DEPARTMENTS));
+                    preparedStatement.addBatch();
+                    if (i % 10000 == 0) {
+                        preparedStatement.executeBatch();
+                    }
+                }
+                preparedStatement.executeBatch();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        }
+    }
+
+    private void migrate(Path directory) {
+        List<Path> migrations;
+        try (Stream<Path> files = Files.list(directory)) {
+            migrations = files.filter(file -> MIGRATION.matcher(file.getFileName().toString()).matches())
+                    .sorted(Comparator.comparingInt(EmbeddedDatabase::version))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new DBException("Could not list migrations in " + directory.toAbsolutePath() + ": " + e.getMessage());
+        }
+        if (migrations.isEmpty()) {
+            throw new DBException("No migrations found in " + directory.toAbsolutePath());
+        }
+        try (Connection conn = DriverManager.getConnection(url, "sa", "");
+             Statement statement = conn.createStatement()) {
+            for (Path migration : migrations) {
+                for (String sql : statements(Files.readString(migration))) {
+                    statement.execute(sql);
+                }
+            }
+        } catch (IOException | SQLException e) {
+            throw new DBException(e.getMessage());
+        }
+    }
+
+    private static int version(Path migration) {
+        Matcher matcher = MIGRATION.matcher(migration.getFileName().toString());
+        matcher.matches();
+        return Integer.parseInt(matcher.group(1));
+    }
+
+    private static List<String> statements(String script) {
+        StringBuilder withoutComments = new StringBuilder();
+        for (String line : script.split("\\R")) {
+            if (!line.trim().startsWith("--")) {
+                withoutComments.append(line).append('\n');
+            }
+        }
+        List<String> statements = new ArrayList<>();
+        for (String sql : withoutComments.toString().split(";")) {
+            if (!sql.isBlank()) {
+                statements.add(sql.trim());
+            }
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,129 @@
+package benchmark;
+
+import model.dao.BatchResult;
+import model.dao.DAOFactory;
+import model.dao.SellerCursor;
+import model.dao.SellerDao;
+import model.dao.impl.CachingSellerDao;
+import model.entities.Department;
+import model.entities.Seller;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SellerDaoBenchmark {
+
+    private static final int PAGE_SIZE = 200;
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"1000", "100000", "1000000"})
+    public int sellers;
+
+    private EmbeddedDatabase database;
+    private SellerDao sellerDao;
+    private SellerDao cachingSellerDao;
+    private Seller existing;
+    private SellerCursor middleCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = EmbeddedDatabase.start("seller_benchmark", sellers);
+        sellerDao = DAOFactory.createSellerDAO();
+        cachingSellerDao = new CachingSellerDao(sellerDao, 10_000, 0, 60_000);
+        existing = sellerDao.findById(1);
+        middleCursor = SellerCursor.of(sellerDao.findById(sellers / 2));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.stop();
+    }
+
+    @Benchmark
+    public List<Seller> findAll() {
+        return sellerDao.findAll();
+    }
+
+    @Benchmark
+    public void streamAll(Blackhole blackhole) {
+        sellerDao.streamAll(blackhole::consume);
+    }
+
+    @Benchmark
+    public List<Seller> findByDepartment() {
+        return sellerDao.findByDepartment(1 + ThreadLocalRandom.current().nextInt(EmbeddedDatabase.DEPARTMENTS));
+    }
+
+    @Benchmark
+    public Seller findById() {
+        return sellerDao.findById(1 + ThreadLocalRandom.current().nextInt(sellers));
+    }
+
+    @Benchmark
+    public Seller findByIdCached() {
+        return cachingSellerDao.findById(1 + ThreadLocalRandom.current().nextInt(Math.min(sellers, 10_000)));
+    }
+
+    @Benchmark
+    public List<Seller> findFirstPage() {
+        return sellerDao.findPage(null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Seller> findPageAfterCursor() {
+        return sellerDao.findPage(middleCursor, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Seller insert() {
+        Seller seller = newSeller();
+        sellerDao.insert(seller);
+        return seller;
+    }
+
+    @Benchmark
+    public Seller update() {
+        existing.setBaseSalary(1000.0 + ThreadLocalRandom.current().nextInt(9000));
+        sellerDao.update(existing);
+        return existing;
+    }
+
+    @Benchmark
+    public BatchResult<Seller> insertAll() {
+        List<Seller> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(newSeller());
+        }
+        return sellerDao.insertAll(batch);
+    }
+
+    private Seller newSeller() {
+        int suffix = ThreadLocalRandom.current().nextInt(1_000_000);
+        return new Seller(null, "Benchmark " + suffix, "benchmark" + suffix + "@example.com",
+                LocalDate.of(1990, 1, 1), 2500.0, new Department(1, "Department 1"));
+    }
+}
@@ -0,0 +1,90 @@
+package benchmark;
+
+import db.Db;
+import model.dao.DepartmentCache;
+import model.dao.impl.SellerRowMapper;
+import model.entities.Department;
+import model.entities.Seller;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SellerRowMapperBenchmark {
+
+    private static final String FIND_ALL_SQL = "SELECT "
+            + "seller.Id, seller.Name, seller.Email, seller.BirthDate, seller.BaseSalary, "
+            + "seller.DepartmentId, department.Name DepartmentName "
+            + "FROM seller "
+            + "INNER JOIN department ON department.Id = seller.DepartmentId "
+            + "ORDER BY seller.Name, seller.Id";
+
+    @Param({"10000", "100000"})
+    public int sellers;
+
+    private EmbeddedDatabase database;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = EmbeddedDatabase.start("row_mapper_benchmark", sellers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.stop();
+    }
+
+    @Benchmark
+    public void mapByLabel(Blackhole blackhole) throws SQLException {
+        try (Connection conn = Db.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(FIND_ALL_SQL);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                Department department = DepartmentCache.getInstance()
+                        .resolve(resultSet.getInt("DepartmentId"), resultSet.getString("DepartmentName"));
+                Seller seller = new Seller();
+                seller.setId(resultSet.getInt("Id"));
+                seller.setName(resultSet.getString("Name"));
+                seller.setEmail(resultSet.getString("Email"));
+                seller.setBirthDate(resultSet.getDate("BirthDate").toLocalDate());
+                seller.setBaseSalary(resultSet.getDouble("BaseSalary"));
+                seller.setDepartment(department);
+                blackhole.consume(seller);
+            }
+        }
+    }
+
+    @Benchmark
+    public void mapByIndex(Blackhole blackhole) throws SQLException {
+        try (Connection conn = Db.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(FIND_ALL_SQL);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+            SellerRowMapper rowMapper = new SellerRowMapper(resultSet);
+            while (resultSet.next()) {
+                blackhole.consume(rowMapper.map(resultSet));
+            }
+        }
+    }
+}
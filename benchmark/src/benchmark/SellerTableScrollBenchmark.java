@@ -0,0 +1,142 @@
+package benchmark;
+
+import gui.util.Utils;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.cell.PropertyValueFactory;
+import model.entities.Department;
+import model.entities.Seller;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dprism.order=sw"})
+public class SellerTableScrollBenchmark {
+
+    private static final int VISIBLE_ROWS = 40;
+
+    @Param({"legacy", "cached"})
+    public String renderer;
+
+    @Param({"100000"})
+    public int sellers;
+
+    private final List<TableCell<Seller, ?>> cells = new ArrayList<>();
+
+    private int top;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        startToolkit();
+        Random random = new Random(42);
+        Department department = new Department(1, "Department 1");
+        List<Seller> rows = new ArrayList<>(sellers);
+        for (int i = 0; i < sellers; i++) {
+            rows.add(new Seller(i, "Seller " + i, "seller" + i + "@example.com",
+                    LocalDate.of(1950, 1, 1).plusDays(random.nextInt(20000)),
+                    1000 + random.nextInt(900_000) / 100.0, department));
+        }
+        TableView<Seller> table = new TableView<>(FXCollections.observableArrayList(rows));
+        TableColumn<Seller, LocalDate> birthDate = new TableColumn<>("Birth Date");
+        TableColumn<Seller, Double> baseSalary = new TableColumn<>("Base Salary");
+        birthDate.setCellValueFactory(new PropertyValueFactory<>("birthDate"));
+        baseSalary.setCellValueFactory(new PropertyValueFactory<>("baseSalary"));
+        if (renderer.equals("legacy")) {
+            legacyFormatTableColumnDate(birthDate, "dd/MM/yyyy");
+            legacyFormatTableColumnDouble(baseSalary, 2);
+        } else {
+            Utils.formatTableColumnDate(birthDate, "dd/MM/yyyy");
+            Utils.formatTableColumnDouble(baseSalary, 2);
+        }
+        table.getColumns().add(birthDate);
+        table.getColumns().add(baseSalary);
+        for (int i = 0; i < VISIBLE_ROWS; i++) {
+            cells.add(createCell(table, birthDate));
+            cells.add(createCell(table, baseSalary));
+        }
+    }
+
+    @Benchmark
+    public void scrollOneRow(Blackhole blackhole) {
+        top = top + VISIBLE_ROWS < sellers ? top + 1 : 0;
+        for (int i = 0; i < cells.size(); i++) {
+            TableCell<Seller, ?> cell = cells.get(i);
+            cell.updateIndex(top + i / 2);
+            blackhole.consume(cell.getText());
+        }
+    }
+
+    private static <T> TableCell<Seller, T> createCell(TableView<Seller> table, TableColumn<Seller, T> column) {
+        TableCell<Seller, T> cell = column.getCellFactory().call(column);
+        cell.updateTableView(table);
+        cell.updateTableColumn(column);
+        return cell;
+    }
+
+    private static void startToolkit() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            Platform.startup(started::countDown);
+        } catch (IllegalStateException e) {
+            started.countDown();
+        }
+        started.await();
+        Platform.setImplicitExit(false);
+    }
+
+    private static <T> void legacyFormatTableColumnDate(TableColumn<T, LocalDate> tableColumn, String format) {
+        tableColumn.setCellFactory(column -> new TableCell<>() {
+            @Override
+            protected void updateItem(LocalDate item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setText(null);
+                } else {
+                    setText(item.format(DateTimeFormatter.ofPattern(format)));
+                }
+            }
+        });
+    }
+
+    private static <T> void legacyFormatTableColumnDouble(TableColumn<T, Double> tableColumn, int decimalPlaces) {
+        tableColumn.setCellFactory(column -> new TableCell<>() {
+            @Override
+            protected void updateItem(Double item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setText(null);
+                } else {
+                    Locale.setDefault(Locale.US);
+                    setText(String.format("%." + decimalPlaces + "f", item));
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,106 @@
+package benchmark;
+
+import model.entities.Department;
+import model.entities.Seller;
+import model.exceptions.ValidationException;
+import model.services.Validators;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SellerValidationBenchmark {
+
+    private static final int RECORDS = 10_000;
+
+    private static final String EMAIL_REGEX =
+            "^[a-zA-Z0-9_!#$%&'*+/=?`{|}~^-]+(?:\\.[a-zA-Z0-9_!#$%&'*+/=?`{|}~^-]+)*@[a-zA-Z0-9-]+(?:\\.[a-zA-Z0-9-]+)*$";
+
+    private Seller[] sellers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        Department department = new Department(1, "Department 1");
+        sellers = new Seller[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            boolean invalid = random.nextInt(10) == 0;
+            sellers[i] = new Seller(null, "Seller " + i,
+                    invalid && random.nextBoolean() ? "seller" + i + "@" : "seller." + i + "@mail.example.com",
+                    LocalDate.of(1950, 1, 1).plusDays(random.nextInt(20000)),
+                    invalid ? -1.0 : 1000.0 + random.nextInt(9000), department);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void inlineRulesCompilingRegex(Blackhole blackhole) {
+        for (Seller seller : sellers) {
+            boolean valid = seller.getName() != null && !seller.getName().trim().equals("");
+            valid &= seller.getEmail() != null && !seller.getEmail().trim().equals("")
+                    && Pattern.compile(EMAIL_REGEX).matcher(seller.getEmail()).matches();
+            valid &= seller.getBaseSalary() != null && seller.getBaseSalary() > 0;
+            valid &= seller.getBirthDate() != null;
+            blackhole.consume(valid);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void compiledIsValid(Blackhole blackhole) {
+        for (Seller seller : sellers) {
+            blackhole.consume(Validators.SELLER.isValid(seller));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void compiledErrors(Blackhole blackhole) {
+        for (Seller seller : sellers) {
+            blackhole.consume(Validators.SELLER.errors(seller));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void compiledValidateThrowing(Blackhole blackhole) {
+        for (Seller seller : sellers) {
+            try {
+                Validators.SELLER.validate(seller);
+                blackhole.consume(true);
+            } catch (ValidationException e) {
+                blackhole.consume(e);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    @OperationsPerInvocation(RECORDS)
+    public void compiledErrorsAllCores(Blackhole blackhole) {
+        for (Seller seller : sellers) {
+            blackhole.consume(Validators.SELLER.errors(seller));
+        }
+    }
+}
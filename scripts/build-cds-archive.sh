@@ -0,0 +1,22 @@
+#!/bin/sh
+# Builds a dynamic AppCDS archive (JDK 13+) from one training start-up of the application,
+# so later start-ups map the already parsed and verified classes instead of loading them again.
+#
+# Usage: JAVAFX_LIB=/path/to/javafx-sdk/lib APP_CP=out:lib/mysql-connector-java.jar scripts/build-cds-archive.sh [archive]
+# Then start with: java -XX:SharedArchiveFile=<archive> <same module path and class path> application.Main
+set -e
+
+ARCHIVE="${1:-app-cds.jsa}"
+
+if [ -z "$JAVAFX_LIB" ] || [ -z "$APP_CP" ]; then
+    echo "JAVAFX_LIB and APP_CP must be set" >&2
+    exit 1
+fi
+
+# startup.exitAfterWarmUp makes Main exit once the splash, FXML preloading and pool warm-up have finished
+java -XX:ArchiveClassesAtExit="$ARCHIVE" \
+    -Dstartup.exitAfterWarmUp=true \
+    --module-path "$JAVAFX_LIB" --add-modules javafx.controls,javafx.fxml \
+    -cp "$APP_CP" application.Main
+
+echo "Wrote $ARCHIVE, start the application with -XX:SharedArchiveFile=$ARCHIVE"
@@ -0,0 +1,2 @@
+-- Supports ORDER BY seller.Name, seller.Id and the keyset predicate used by SellerDao.findPage
+CREATE INDEX idx_seller_name_id ON seller (Name, Id);
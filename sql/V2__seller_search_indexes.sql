@@ -0,0 +1,5 @@
+-- Supports the SellerQuery predicates used by SellerDao.findPage/count
+CREATE INDEX idx_seller_email ON seller (Email);
+CREATE INDEX idx_seller_department_name_id ON seller (DepartmentId, Name, Id);
+CREATE INDEX idx_seller_base_salary ON seller (BaseSalary);
+CREATE INDEX idx_seller_birth_date ON seller (BirthDate);
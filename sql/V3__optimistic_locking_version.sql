@@ -0,0 +1,3 @@
+-- Optimistic locking: UPDATE ... WHERE Id = ? AND Version = ? bumps Version on every write
+ALTER TABLE seller ADD COLUMN Version INT NOT NULL DEFAULT 0;
+ALTER TABLE department ADD COLUMN Version INT NOT NULL DEFAULT 0;
@@ -0,0 +1,10 @@
+-- Change feed: DAO writes append one row per changed entity in the same transaction, clients poll Seq > last seen
+CREATE TABLE change_log (
+    Seq BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    Entity VARCHAR(20) NOT NULL,
+    EntityId INT NOT NULL,
+    ChangeType CHAR(1) NOT NULL,
+    Origin CHAR(36) NOT NULL,
+    ChangedAt TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6)
+);
+CREATE INDEX idx_change_log_changed_at ON change_log (ChangedAt);
@@ -0,0 +1,14 @@
+-- Payroll summary per department, kept current by SellerDao writes so dashboards read one row per department
+CREATE TABLE department_payroll (
+    DepartmentId INT NOT NULL PRIMARY KEY,
+    Headcount INT NOT NULL DEFAULT 0,
+    TotalSalary DECIMAL(24,6) NOT NULL DEFAULT 0,
+    MinSalary DOUBLE DEFAULT NULL,
+    MaxSalary DOUBLE DEFAULT NULL
+);
+-- MIN/MAX(BaseSalary) per department become two index seeks when a summary row is refreshed
+CREATE INDEX idx_seller_department_base_salary ON seller (DepartmentId, BaseSalary);
+INSERT INTO department_payroll (DepartmentId, Headcount, TotalSalary, MinSalary, MaxSalary)
+SELECT department.Id, COUNT(seller.Id), COALESCE(SUM(seller.BaseSalary), 0), MIN(seller.BaseSalary), MAX(seller.BaseSalary)
+FROM department LEFT JOIN seller ON seller.DepartmentId = department.Id
+GROUP BY department.Id;
@@ -0,0 +1,5 @@
+-- Write-behind idempotency keys, inserted in the flush transaction so a journal replay can skip writes that committed
+CREATE TABLE write_behind_applied (
+    WriteKey CHAR(36) NOT NULL PRIMARY KEY,
+    AppliedAt TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6)
+);
@@ -1,31 +1,117 @@
 package application;
 
+import db.Db;
+import gui.util.Alerts;
+import gui.util.ViewCache;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
+import javafx.geometry.Insets;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import javafx.stage.StageStyle;
+import model.services.ChangeFeed;
+import model.services.DepartmentService;
+import model.services.SellerService;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.DriverManager;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
 
 public class Main extends Application {
 
+    private static final Logger LOGGER = Logger.getLogger(Main.class.getName());
+
+    private static final StartupProfile STARTUP = new StartupProfile();
+
     private static Scene mainScene;
 
+    private ExecutorService warmUpExecutor;
+
+    private CompletableFuture<Void> warmUp;
+
+    @Override
+    public void init() {
+        STARTUP.mark("JavaFX toolkit started");
+        AtomicInteger threads = new AtomicInteger();
+        warmUpExecutor = Executors.newFixedThreadPool(3, runnable -> {
+            Thread thread = new Thread(runnable, "startup-warm-up-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletableFuture<Void> database = STARTUP.timeAsync("JDBC driver loading", () -> DriverManager.getDrivers(), warmUpExecutor)
+                .thenCompose(ignored -> STARTUP.timeAsync("connection pool warm-up",
+                        () -> Db.getConnectionPool().warmUp(), warmUpExecutor))
+                .thenCompose(ignored -> STARTUP.timeAsync("change feed start", () -> {
+                    ChangeFeed.getInstance();
+                }, warmUpExecutor))
+                .thenCompose(ignored -> STARTUP.timeAsync("write-behind journal replay", () -> {
+                    SellerService.getWriteBehindQueue();
+                }, warmUpExecutor));
+        CompletableFuture<Void> snapshots = STARTUP.timeAsync("local snapshot read", () -> {
+            new DepartmentService().getSnapshot();
+            new SellerService().getSnapshot();
+        }, warmUpExecutor);
+        warmUp = CompletableFuture.allOf(database, snapshots);
+    }
+
     @Override
     public void start(Stage primaryStage) {
-        try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("../gui/MainView.fxml"));
-            ScrollPane scrollPane = loader.load();
+        STARTUP.mark("start");
+        Stage splash = showSplash();
+        CompletableFuture<ScrollPane> mainView = STARTUP.timeAsync("main view FXML", () -> {
+            try {
+                return FXMLLoader.<ScrollPane>load(Main.class.getResource("../gui/MainView.fxml"));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, warmUpExecutor);
+        CompletableFuture<Void> views = ViewCache.getInstance().preloadAsync("/gui/SellerList.fxml",
+                "/gui/DepartmentList.fxml", "/gui/SellerForm.fxml", "/gui/DepartmentForm.fxml");
+
+        mainView.whenCompleteAsync((scrollPane, error) -> {
+            if (error != null) {
+                splash.close();
+                Alerts.showAlert("IO Exception","Error loading main view",error.getMessage(), Alert.AlertType.ERROR);
+                Platform.exit();
+                return;
+            }
             scrollPane.setFitToHeight(true);
             scrollPane.setFitToWidth(true);
             mainScene = new Scene(scrollPane);
             primaryStage.setScene(mainScene);
             primaryStage.setTitle("Sample JavaFX Application");
             primaryStage.show();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+            splash.close();
+            STARTUP.mark("main window shown");
+        }, Platform::runLater);
+
+        CompletableFuture.allOf(warmUp, views, mainView).whenComplete((ignored, error) -> {
+            STARTUP.mark("warm-up finished");
+            LOGGER.info(STARTUP.report());
+            warmUpExecutor.shutdown();
+            if (Boolean.getBoolean("startup.exitAfterWarmUp")) {
+                Platform.runLater(Platform::exit);
+            }
+        });
+    }
+
+    @Override
+    public void stop() {
+        LOGGER.info("View cache timings:" + System.lineSeparator() + ViewCache.getInstance().timingReport());
+        ChangeFeed.closeInstance();
+        SellerService.closeWriteBehindQueue();
+        Db.closeConnectionPool();
     }
 
     public static Scene getMainScene() {
@@ -33,6 +119,16 @@ public class Main extends Application {
     }
 
     public static void main(String[] args) {
+        STARTUP.mark("main");
         launch(args);
     }
+
+    private static Stage showSplash() {
+        VBox content = new VBox(10, new ProgressIndicator(), new Label("Loading..."));
+        content.setPadding(new Insets(20));
+        Stage splash = new Stage(StageStyle.UNDECORATED);
+        splash.setScene(new Scene(content));
+        splash.show();
+        return splash;
+    }
 }
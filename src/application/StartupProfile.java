@@ -0,0 +1,75 @@
+package application;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class StartupProfile {
+
+    private static final Logger LOGGER = Logger.getLogger(StartupProfile.class.getName());
+
+    private final long origin = System.nanoTime();
+    private final List<Phase> phases = new ArrayList<>();
+
+    public void mark(String name) {
+        record(new Phase(name, System.nanoTime(), -1));
+    }
+
+    public <T> CompletableFuture<T> timeAsync(String name, Supplier<T> task, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                return task.get();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Startup phase '" + name + "' failed", e);
+                throw e;
+            } finally {
+                record(new Phase(name, start, System.nanoTime() - start));
+            }
+        }, executor);
+    }
+
+    public CompletableFuture<Void> timeAsync(String name, Runnable task, Executor executor) {
+        return timeAsync(name, () -> {
+            task.run();
+            return null;
+        }, executor);
+    }
+
+    public synchronized String report() {
+        StringBuilder report = new StringBuilder("Startup profile (ms since main):");
+        long jvmBoot = ManagementFactory.getRuntimeMXBean().getUptime() - (System.nanoTime() - origin) / 1_000_000;
+        report.append(String.format("%n  %6s  JVM boot before main: %d ms", "", jvmBoot));
+        for (Phase phase : phases) {
+            report.append(String.format("%n  %6d  %s", (phase.start - origin) / 1_000_000, phase.name));
+            if (phase.nanos >= 0) {
+                report.append(String.format(" took %d ms", phase.nanos / 1_000_000));
+            }
+            report.append(" [").append(phase.thread).append(']');
+        }
+        return report.toString();
+    }
+
+    private synchronized void record(Phase phase) {
+        phases.add(phase);
+    }
+
+    private static class Phase {
+
+        private final String name;
+        private final long start;
+        private final long nanos;
+        private final String thread = Thread.currentThread().getName();
+
+        Phase(String name, long start, long nanos) {
+            this.name = name;
+            this.start = start;
+            this.nanos = nanos;
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class ConnectionPool {
+
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+
+    private final String url;
+    private final Properties connectionProperties;
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long leakDetectionThresholdMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+    private final Semaphore permits;
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> leasedConnections = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+
+    private volatile boolean closed = false;
+
+    public ConnectionPool(String url, Properties connectionProperties, int minSize, int maxSize,
+                          long acquireTimeoutMillis, long idleTimeoutMillis,
+                          long leakDetectionThresholdMillis, int validationTimeoutSeconds,
+                          int statementCacheSize) {
+        if (minSize < 0 || maxSize <= 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.connectionProperties = connectionProperties;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, leakDetectionThresholdMillis > 0
+                ? leakDetectionThresholdMillis : idleTimeoutMillis) / 2);
+        housekeeper.scheduleWithFixedDelay(this::houseKeep, period, period, TimeUnit.MILLISECONDS);
+        QueryMetrics.getInstance().bind(this);
+    }
+
+    public static ConnectionPool fromProperties(Properties props) {
+        Properties connectionProperties = new Properties();
+        for (String key : props.stringPropertyNames()) {
+            if (!key.equals("urlDataBase") && !key.contains(".")) {
+                connectionProperties.setProperty(key, props.getProperty(key));
+            }
+        }
+        return new ConnectionPool(
+                props.getProperty("urlDataBase"),
+                connectionProperties,
+                Integer.parseInt(props.getProperty("pool.minSize", "1")),
+                Integer.parseInt(props.getProperty("pool.maxSize", "10")),
+                Long.parseLong(props.getProperty("pool.acquireTimeoutMillis", "30000")),
+                Long.parseLong(props.getProperty("pool.idleTimeoutMillis", "600000")),
+                Long.parseLong(props.getProperty("pool.leakDetectionThresholdMillis", "0")),
+                Integer.parseInt(props.getProperty("pool.validationTimeoutSeconds", "2")),
+                Integer.parseInt(props.getProperty("pool.statementCacheSize", "64")));
+    }
+
+    public Connection getConnection() {
+        if (closed) {
+            throw new DBException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new DBException("Timeout waiting for a database connection after " + acquireTimeoutMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DBException("Interrupted waiting for a database connection");
+        }
+        try {
+            PooledConnection pooledConnection = borrowIdleConnection();
+            if (pooledConnection == null) {
+                openConnections.incrementAndGet();
+                pooledConnection = openPooledConnection();
+            }
+            pooledConnection.lease(leakDetectionThresholdMillis > 0);
+            leasedConnections.add(pooledConnection);
+            QueryMetrics.getInstance().recordPoolWait(System.nanoTime() - start);
+            return pooledConnection.newHandle();
+        } catch (SQLException e) {
+            permits.release();
+            throw new DBException(e.getMessage());
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public void warmUp() {
+        while (!closed && idleConnections.size() + leasedConnections.size() < minSize && acquireWarmUpPermit()) {
+            // the permit makes this count like a lease that is still opening; the slot covers idle connections
+            // in flight between leasedConnections and idleConnections, which neither collection shows
+            try {
+                if (!reserveWarmUpSlot()) {
+                    return;
+                }
+                idleConnections.offerLast(openPooledConnection());
+            } catch (SQLException e) {
+                throw new DBException(e.getMessage());
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    public int getIdleCount() {
+        return idleConnections.size();
+    }
+
+    public int getLeasedCount() {
+        return leasedConnections.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits.get();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.get();
+    }
+
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooledConnection;
+        while ((pooledConnection = idleConnections.pollFirst()) != null) {
+            pooledConnection.closePhysical();
+        }
+        for (PooledConnection leased : leasedConnections) {
+            leased.closePhysical();
+        }
+        leasedConnections.clear();
+    }
+
+    private boolean acquireWarmUpPermit() {
+        try {
+            // a zero timeout still queues behind waiting callers, who will open their own connection anyway
+            return permits.tryAcquire(0, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean reserveWarmUpSlot() {
+        int open;
+        do {
+            open = openConnections.get();
+            if (open >= Math.min(minSize, maxSize)) {
+                return false;
+            }
+        } while (!openConnections.compareAndSet(open, open + 1));
+        return true;
+    }
+
+    // the caller has already counted the connection in openConnections
+    private PooledConnection openPooledConnection() throws SQLException {
+        try {
+            return new PooledConnection(openPhysicalConnection());
+        } catch (SQLException | RuntimeException e) {
+            openConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private PooledConnection borrowIdleConnection() {
+        PooledConnection pooledConnection;
+        while ((pooledConnection = idleConnections.pollFirst()) != null) {
+            if (pooledConnection.isValid(validationTimeoutSeconds)) {
+                return pooledConnection;
+            }
+            pooledConnection.closePhysical();
+        }
+        return null;
+    }
+
+    private Connection openPhysicalConnection() throws SQLException {
+        return DriverManager.getConnection(url, connectionProperties);
+    }
+
+    private void release(PooledConnection pooledConnection) {
+        leasedConnections.remove(pooledConnection);
+        try {
+            if (closed || !pooledConnection.reset()) {
+                pooledConnection.closePhysical();
+            } else {
+                idleConnections.offerFirst(pooledConnection);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void houseKeep() {
+        try {
+            long now = System.currentTimeMillis();
+            Iterator<PooledConnection> iterator = idleConnections.descendingIterator();
+            while (iterator.hasNext() && idleConnections.size() > minSize) {
+                PooledConnection pooledConnection = iterator.next();
+                if (now - pooledConnection.lastUsedAt > idleTimeoutMillis && idleConnections.remove(pooledConnection)) {
+                    pooledConnection.closePhysical();
+                }
+            }
+            if (leakDetectionThresholdMillis > 0) {
+                for (PooledConnection leased : leasedConnections) {
+                    if (!leased.leakReported && now - leased.leasedAt > leakDetectionThresholdMillis) {
+                        leased.leakReported = true;
+                        LOGGER.log(Level.WARNING, "Connection leased for more than " + leakDetectionThresholdMillis
+                                + " ms, possible leak", leased.leaseTrace);
+                    }
+                }
+            }
+            warmUp();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Connection pool housekeeping failed", e);
+        }
+    }
+
+    private class PooledConnection {
+
+        private final Connection physical;
+        private final StatementCache statementCache;
+        private final AtomicBoolean physicalClosed = new AtomicBoolean();
+        private volatile long lastUsedAt = System.currentTimeMillis();
+        private volatile long leasedAt;
+        private volatile Exception leaseTrace;
+        private volatile boolean leakReported;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statementCache = new StatementCache(physical, statementCacheSize,
+                    statementCacheHits, statementCacheMisses);
+        }
+
+        void lease(boolean traceLease) {
+            leasedAt = System.currentTimeMillis();
+            leaseTrace = traceLease ? new Exception("Connection leased here") : null;
+            leakReported = false;
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new Handle());
+        }
+
+        boolean isValid(int timeoutSeconds) {
+            try {
+                return physical.isValid(timeoutSeconds);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        boolean reset() {
+            lastUsedAt = System.currentTimeMillis();
+            leaseTrace = null;
+            try {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                physical.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        void closePhysical() {
+            if (physicalClosed.getAndSet(true)) {
+                return;
+            }
+            openConnections.decrementAndGet();
+            statementCache.clear();
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                LOGGER.log(Level.FINE, "Error closing physical connection", e);
+            }
+        }
+
+        private class Handle implements InvocationHandler {
+
+            private boolean released = false;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!released) {
+                            released = true;
+                            release(PooledConnection.this);
+                        }
+                        return null;
+                    case "isClosed":
+                        return released || physical.isClosed();
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "PooledConnection[" + physical + "]";
+                    default:
+                        if (released) {
+                            throw new SQLException("Connection was already returned to the pool");
+                        }
+                        if (method.getName().equals("prepareStatement") && args.length <= 2
+                                && (args.length == 1 || args[1] instanceof Integer)) {
+                            int autoGeneratedKeys = args.length == 1 ? Statement.NO_GENERATED_KEYS : (Integer) args[1];
+                            return QueryMetrics.getInstance().instrument((String) args[0],
+                                    statementCache.prepareStatement((String) args[0], autoGeneratedKeys));
+                        }
+                        Object result;
+                        try {
+                            result = method.invoke(physical, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                        if (method.getName().equals("prepareStatement")) {
+                            return QueryMetrics.getInstance().instrument((String) args[0], (PreparedStatement) result);
+                        }
+                        return result;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+class CountingResultSet implements InvocationHandler {
+
+    private final ResultSet resultSet;
+    private final Statement statement;
+    private final Runnable onClose;
+    private long rows;
+    private boolean closed;
+
+    CountingResultSet(ResultSet resultSet, Statement statement, Runnable onClose) {
+        this.resultSet = resultSet;
+        this.statement = statement;
+        this.onClose = onClose;
+    }
+
+    ResultSet newProxy() {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, this);
+    }
+
+    long getRowsRead() {
+        return rows;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "next":
+                boolean hasRow = (Boolean) delegate(method, args);
+                if (hasRow) {
+                    rows++;
+                }
+                return hasRow;
+            case "close":
+                if (!closed) {
+                    closed = true;
+                    onClose.run();
+                }
+                return delegate(method, args);
+            case "getStatement":
+                // the instrumented statement, so callers that close it through the result set are still counted
+                return statement;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return delegate(method, args);
+        }
+    }
+
+    private Object delegate(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(resultSet, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
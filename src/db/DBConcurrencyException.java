@@ -0,0 +1,9 @@
+package db;
+
+public class DBConcurrencyException extends RuntimeException {
+
+    public DBConcurrencyException(String msg) {
+        super(msg);
+    }
+
+}
@@ -3,65 +3,63 @@ package db;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.SQLException;
 import java.util.Properties;
 
 public class Db {
 
-    private static Connection conn = null;
+    private static Properties properties = null;
+
+    private static ConnectionPool connectionPool = null;
 
     public static Connection getConnection() {
-        if (conn == null) {
-            try {
-                Properties props = loadProperties();
-                String url = props.getProperty("urlDataBase");
-                conn = DriverManager.getConnection(url, props);
-            } catch (SQLException e) {
-                throw new DBException(e.getMessage());
-            }
+        Connection transactionConnection = Transaction.currentConnection();
+        if (transactionConnection != null) {
+            return transactionConnection;
         }
-        return conn;
+        return getConnectionPool().getConnection();
     }
 
-    public static void closeConnection() {
-        if (conn != null) {
-            try {
-                conn.close();
-            } catch (SQLException e) {
-                throw new DBException(e.getMessage());
-            }
+    public static synchronized ConnectionPool getConnectionPool() {
+        if (connectionPool == null) {
+            QueryMetrics.getInstance().configure(getProperties());
+            connectionPool = ConnectionPool.fromProperties(getProperties());
         }
+        return connectionPool;
     }
 
-    public static void beginTransaction() {
-        if (conn != null) {
-            try {
-                conn.setAutoCommit(false);
-            } catch (SQLException e) {
-                throw new DBException(e.getMessage());
-            }
+    public static synchronized void closeConnectionPool() {
+        if (connectionPool != null) {
+            connectionPool.close();
+            connectionPool = null;
         }
     }
 
-    public static void commitTransaction() {
-        if (conn != null) {
-            try {
-                conn.commit();
-            } catch (SQLException e) {
-                throw new DBException(e.getMessage());
-            }
-        }
+    public static <T> T inTransaction(TransactionCallback<T> callback) {
+        return Transaction.execute(callback, getConnectionPool());
+    }
+
+    public static <T> T inSavepoint(TransactionCallback<T> callback) {
+        return Transaction.executeInSavepoint(callback, getConnectionPool());
+    }
+
+    public static void beforeCommit(TransactionCallback<Void> action) {
+        Transaction.beforeCommit(action, getConnectionPool());
+    }
+
+    public static void afterCommit(Runnable action) {
+        Transaction.afterCommit(action);
+    }
+
+    public static synchronized void configure(Properties props) {
+        closeConnectionPool();
+        properties = props;
     }
 
-    public static void rollbackTransaction() {
-        if (conn != null) {
-            try {
-                conn.rollback();
-            } catch (SQLException e) {
-                throw new DBException(e.getMessage());
-            }
+    public static synchronized Properties getProperties() {
+        if (properties == null) {
+            properties = loadProperties();
         }
+        return properties;
     }
 
     private static Properties loadProperties() {
@@ -0,0 +1,83 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+class InstrumentedStatement implements InvocationHandler {
+
+    private final QueryMetrics metrics;
+    private final String sql;
+    private final PreparedStatement statement;
+    private int parameters;
+    private CountingResultSet openResultSet;
+
+    InstrumentedStatement(QueryMetrics metrics, String sql, PreparedStatement statement) {
+        this.metrics = metrics;
+        this.sql = sql;
+        this.statement = statement;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (name.startsWith("execute")) {
+            return execute(proxy, method, args);
+        }
+        if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+            parameters = Math.max(parameters, (Integer) args[0]);
+        } else if (name.equals("close")) {
+            flushRows();
+        } else if (name.equals("equals")) {
+            return proxy == args[0];
+        } else if (name.equals("hashCode")) {
+            return System.identityHashCode(proxy);
+        }
+        return delegate(method, args);
+    }
+
+    private Object execute(Object proxy, Method method, Object[] args) throws Throwable {
+        flushRows();
+        long start = System.nanoTime();
+        boolean failed = true;
+        Object result;
+        try {
+            result = delegate(method, args);
+            failed = false;
+        } finally {
+            metrics.recordExecution(sql, System.nanoTime() - start, parameters, failed);
+        }
+        if (result instanceof ResultSet) {
+            openResultSet = new CountingResultSet((ResultSet) result, (Statement) proxy, this::flushRows);
+            return openResultSet.newProxy();
+        }
+        if (result instanceof Integer || result instanceof Long) {
+            metrics.recordRows(sql, ((Number) result).longValue());
+        } else if (result instanceof int[]) {
+            long rows = 0;
+            for (int count : (int[]) result) {
+                rows += Math.max(count, 0);
+            }
+            metrics.recordRows(sql, rows);
+        }
+        return result;
+    }
+
+    private void flushRows() {
+        if (openResultSet != null) {
+            metrics.recordRows(sql, openResultSet.getRowsRead());
+            openResultSet = null;
+        }
+    }
+
+    private Object delegate(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(statement, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package db;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class QueryMetrics implements QueryMetricsMXBean {
+
+    private static final Logger LOGGER = Logger.getLogger(QueryMetrics.class.getName());
+
+    private static final String OBJECT_NAME = "db:type=QueryMetrics";
+
+    private static final int MAX_TRACKED_STATEMENTS = 500;
+
+    private static final String OTHER_STATEMENTS = "(other)";
+
+    private static final QueryMetrics INSTANCE = new QueryMetrics();
+
+    private final Map<String, StatementMetrics> statements = new ConcurrentHashMap<>();
+    private final LatencyHistogram poolWait = new LatencyHistogram();
+    private final AtomicLong slowQueries = new AtomicLong();
+
+    private volatile boolean enabled = true;
+    private volatile long slowQueryThresholdMillis = 500;
+    private volatile ConnectionPool connectionPool;
+    private boolean registered = false;
+
+    private QueryMetrics() {}
+
+    public static QueryMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    public synchronized void configure(Properties props) {
+        enabled = Boolean.parseBoolean(props.getProperty("metrics.enabled", "true"));
+        slowQueryThresholdMillis = Long.parseLong(props.getProperty("metrics.slowQueryMillis", "500"));
+        if (!registered && Boolean.parseBoolean(props.getProperty("metrics.jmx", "true"))) {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName name = new ObjectName(OBJECT_NAME);
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(this, name);
+                }
+                registered = true;
+            } catch (JMException e) {
+                LOGGER.log(Level.WARNING, "Could not register query metrics MBean", e);
+            }
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public long getSlowQueryThresholdMillis() {
+        return slowQueryThresholdMillis;
+    }
+
+    @Override
+    public void setSlowQueryThresholdMillis(long slowQueryThresholdMillis) {
+        this.slowQueryThresholdMillis = slowQueryThresholdMillis;
+    }
+
+    @Override
+    public long getStatementCount() {
+        long count = 0;
+        for (StatementMetrics metrics : statements.values()) {
+            count += metrics.latency.getCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getErrorCount() {
+        long count = 0;
+        for (StatementMetrics metrics : statements.values()) {
+            count += metrics.errors.get();
+        }
+        return count;
+    }
+
+    @Override
+    public long getSlowQueryCount() {
+        return slowQueries.get();
+    }
+
+    @Override
+    public long getRowCount() {
+        long count = 0;
+        for (StatementMetrics metrics : statements.values()) {
+            count += metrics.rows.get();
+        }
+        return count;
+    }
+
+    @Override
+    public long getPoolWaitCount() {
+        return poolWait.getCount();
+    }
+
+    @Override
+    public double getPoolWaitMeanMillis() {
+        return poolWait.getMeanMillis();
+    }
+
+    @Override
+    public double getPoolWaitP99Millis() {
+        return poolWait.getPercentileMillis(99);
+    }
+
+    @Override
+    public double getPoolWaitMaxMillis() {
+        return poolWait.getMaxMillis();
+    }
+
+    @Override
+    public int getIdleConnections() {
+        ConnectionPool pool = connectionPool;
+        return pool == null ? 0 : pool.getIdleCount();
+    }
+
+    @Override
+    public int getLeasedConnections() {
+        ConnectionPool pool = connectionPool;
+        return pool == null ? 0 : pool.getLeasedCount();
+    }
+
+    @Override
+    public int getMaxConnections() {
+        ConnectionPool pool = connectionPool;
+        return pool == null ? 0 : pool.getMaxSize();
+    }
+
+    @Override
+    public long getStatementCacheHits() {
+        ConnectionPool pool = connectionPool;
+        return pool == null ? 0 : pool.getStatementCacheHits();
+    }
+
+    @Override
+    public long getStatementCacheMisses() {
+        ConnectionPool pool = connectionPool;
+        return pool == null ? 0 : pool.getStatementCacheMisses();
+    }
+
+    @Override
+    public List<QueryStatistics> getStatements() {
+        List<QueryStatistics> result = new ArrayList<>(statements.size());
+        for (Map.Entry<String, StatementMetrics> entry : statements.entrySet()) {
+            StatementMetrics metrics = entry.getValue();
+            LatencyHistogram latency = metrics.latency;
+            result.add(new QueryStatistics(entry.getKey(), latency.getCount(), metrics.errors.get(),
+                    metrics.rows.get(), latency.getMeanMillis(), latency.getPercentileMillis(50),
+                    latency.getPercentileMillis(95), latency.getPercentileMillis(99), latency.getMaxMillis()));
+        }
+        result.sort(Comparator.comparingDouble((QueryStatistics statistics) ->
+                statistics.getMeanMillis() * statistics.getCount()).reversed());
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        statements.clear();
+        poolWait.reset();
+        slowQueries.set(0);
+    }
+
+    void bind(ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    void recordPoolWait(long nanos) {
+        if (enabled) {
+            poolWait.record(nanos);
+        }
+    }
+
+    PreparedStatement instrument(String sql, PreparedStatement preparedStatement) {
+        if (!enabled) {
+            return preparedStatement;
+        }
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new InstrumentedStatement(this, sql, preparedStatement));
+    }
+
+    void recordExecution(String sql, long nanos, int parameters, boolean failed) {
+        StatementMetrics metrics = metricsFor(sql);
+        metrics.latency.record(nanos);
+        if (failed) {
+            metrics.errors.incrementAndGet();
+        }
+        long millis = nanos / 1_000_000;
+        if (slowQueryThresholdMillis > 0 && millis >= slowQueryThresholdMillis) {
+            slowQueries.incrementAndGet();
+            LOGGER.warning("Slow query took " + millis + " ms (" + parameters
+                    + " bind parameters redacted): " + sql);
+        }
+    }
+
+    void recordRows(String sql, long rows) {
+        if (rows > 0) {
+            metricsFor(sql).rows.addAndGet(rows);
+        }
+    }
+
+    private StatementMetrics metricsFor(String sql) {
+        StatementMetrics metrics = statements.get(sql);
+        if (metrics == null) {
+            String key = statements.size() < MAX_TRACKED_STATEMENTS ? sql : OTHER_STATEMENTS;
+            metrics = statements.computeIfAbsent(key, k -> new StatementMetrics());
+        }
+        return metrics;
+    }
+
+    private static class StatementMetrics {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong rows = new AtomicLong();
+    }
+}
@@ -0,0 +1,27 @@
+package db;
+
+import java.util.List;
+
+public interface QueryMetricsMXBean {
+
+    boolean isEnabled();
+    void setEnabled(boolean enabled);
+    long getSlowQueryThresholdMillis();
+    void setSlowQueryThresholdMillis(long slowQueryThresholdMillis);
+    long getStatementCount();
+    long getErrorCount();
+    long getSlowQueryCount();
+    long getRowCount();
+    long getPoolWaitCount();
+    double getPoolWaitMeanMillis();
+    double getPoolWaitP99Millis();
+    double getPoolWaitMaxMillis();
+    int getIdleConnections();
+    int getLeasedConnections();
+    int getMaxConnections();
+    long getStatementCacheHits();
+    long getStatementCacheMisses();
+    List<QueryStatistics> getStatements();
+    void reset();
+
+}
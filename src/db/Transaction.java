@@ -0,0 +1,179 @@
+package db;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+class Transaction {
+
+    private static final Logger LOGGER = Logger.getLogger(Transaction.class.getName());
+
+    private static final ThreadLocal<Transaction> CURRENT = new ThreadLocal<>();
+
+    private final Connection connection;
+    private final Connection sharedHandle;
+    private final List<TransactionCallback<Void>> beforeCommit = new ArrayList<>();
+    private final List<Runnable> afterCommit = new ArrayList<>();
+
+    private Transaction(Connection connection) {
+        this.connection = connection;
+        this.sharedHandle = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            return null;
+                        case "setAutoCommit":
+                        case "commit":
+                        case "rollback":
+                        case "setSavepoint":
+                        case "releaseSavepoint":
+                            throw new SQLException("Transaction boundaries are managed by Db.inTransaction");
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                });
+    }
+
+    static Connection currentConnection() {
+        Transaction transaction = CURRENT.get();
+        return transaction == null ? null : transaction.sharedHandle;
+    }
+
+    static <T> T execute(TransactionCallback<T> callback, ConnectionPool connectionPool) {
+        Transaction current = CURRENT.get();
+        if (current != null) {
+            return current.run(callback);
+        }
+        try (Connection conn = connectionPool.getConnection()) {
+            Transaction transaction = new Transaction(conn);
+            CURRENT.set(transaction);
+            try {
+                conn.setAutoCommit(false);
+                T result = transaction.run(callback);
+                transaction.fireBeforeCommit();
+                conn.commit();
+                transaction.fireAfterCommit();
+                return result;
+            } catch (SQLException e) {
+                rollbackQuietly(conn);
+                throw new DBException(e.getMessage());
+            } catch (RuntimeException | Error e) {
+                rollbackQuietly(conn);
+                throw e;
+            } finally {
+                CURRENT.remove();
+                restoreAutoCommit(conn);
+            }
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        }
+    }
+
+    static <T> T executeInSavepoint(TransactionCallback<T> callback, ConnectionPool connectionPool) {
+        Transaction current = CURRENT.get();
+        if (current == null) {
+            return execute(callback, connectionPool);
+        }
+        Savepoint savepoint;
+        try {
+            savepoint = current.connection.setSavepoint();
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        }
+        int beforeCommitMark = current.beforeCommit.size();
+        int afterCommitMark = current.afterCommit.size();
+        try {
+            T result = current.run(callback);
+            current.connection.releaseSavepoint(savepoint);
+            return result;
+        } catch (SQLException e) {
+            current.rollbackTo(savepoint, beforeCommitMark, afterCommitMark);
+            throw new DBException(e.getMessage());
+        } catch (RuntimeException | Error e) {
+            current.rollbackTo(savepoint, beforeCommitMark, afterCommitMark);
+            throw e;
+        }
+    }
+
+    static void beforeCommit(TransactionCallback<Void> action, ConnectionPool connectionPool) {
+        if (CURRENT.get() == null) {
+            execute(action, connectionPool);
+        } else {
+            CURRENT.get().beforeCommit.add(action);
+        }
+    }
+
+    static void afterCommit(Runnable action) {
+        Transaction current = CURRENT.get();
+        if (current == null) {
+            action.run();
+        } else {
+            current.afterCommit.add(action);
+        }
+    }
+
+    private <T> T run(TransactionCallback<T> callback) {
+        try {
+            return callback.doInTransaction(sharedHandle);
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        }
+    }
+
+    private void rollbackTo(Savepoint savepoint, int beforeCommitMark, int afterCommitMark) {
+        beforeCommit.subList(beforeCommitMark, beforeCommit.size()).clear();
+        afterCommit.subList(afterCommitMark, afterCommit.size()).clear();
+        try {
+            connection.rollback(savepoint);
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Rollback to savepoint failed", e);
+        }
+    }
+
+    private void fireBeforeCommit() {
+        // indexed so actions may register further actions that run last
+        for (int i = 0; i < beforeCommit.size(); i++) {
+            run(beforeCommit.get(i));
+        }
+    }
+
+    private void fireAfterCommit() {
+        for (Runnable action : afterCommit) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "After-commit action failed", e);
+            }
+        }
+    }
+
+    private static void restoreAutoCommit(Connection conn) {
+        try {
+            conn.setAutoCommit(true);
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Could not restore auto-commit", e);
+        }
+    }
+
+    private static void rollbackQuietly(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Rollback failed", e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+public interface TransactionCallback<T> {
+
+    T doInTransaction(Connection conn) throws SQLException;
+
+}
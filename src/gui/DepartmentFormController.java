@@ -1,10 +1,13 @@
 package gui;
 
-import db.DBException;
+import db.DBConcurrencyException;
+import gui.listeners.DataChangeEvent;
 import gui.listeners.DataChangeListener;
 import gui.util.Alerts;
 import gui.util.Constraints;
+import gui.util.Resettable;
 import gui.util.Utils;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -12,20 +15,25 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
+import javafx.stage.Stage;
 import model.exceptions.ValidationException;
 import model.entities.Department;
 import model.services.DepartmentService;
+import model.services.Validators;
 
 import java.net.URL;
 import java.util.*;
 
-public class DepartmentFormController implements Initializable {
+public class DepartmentFormController implements Initializable, Resettable {
 
     private Department entity;
 
     private DepartmentService service;
 
-    private List<DataChangeListener> dataChangeListeners = new ArrayList<>();
+    private List<DataChangeListener<Department>> dataChangeListeners = new ArrayList<>();
+
+    // bumped on every reset, so callbacks started for an earlier dialog leave the pooled form alone
+    private int session = 0;
 
     @FXML
     private TextField textFieldId;
@@ -52,14 +60,65 @@ public class DepartmentFormController implements Initializable {
         }
         try {
             entity = getFormData();
-            service.insertOrUpdate(entity);
-            notifyDataChangeListener();
-            Utils.currentStage(event).close();
         } catch (ValidationException e) {
             setErrorMessages(e.getErrorsMessage());
-        } catch (DBException e) {
-            Alerts.showAlert("Error saving department",null,e.getMessage(), Alert.AlertType.ERROR);
+            return;
         }
+        Stage stage = Utils.currentStage(event);
+        Department saved = entity;
+        boolean inserting = saved.getId() == null;
+        List<DataChangeListener<Department>> listeners = new ArrayList<>(dataChangeListeners);
+        int savedSession = session;
+        buttonSave.setDisable(true);
+        service.insertOrUpdateAsync(saved).whenCompleteAsync((ignored, error) -> {
+            boolean open = savedSession == session;
+            if (open) {
+                buttonSave.setDisable(false);
+            }
+            if (error == null) {
+                notifyDataChangeListener(listeners, inserting
+                        ? DataChangeEvent.inserted(saved, saved.getId())
+                        : DataChangeEvent.updated(saved, saved.getId()));
+                if (open) {
+                    stage.close();
+                }
+            } else if (Utils.rootCause(error) instanceof DBConcurrencyException) {
+                if (open) {
+                    Alerts.showAlert("Concurrent modification",null,Utils.rootCause(error).getMessage()
+                            + ". The form was reloaded with the latest saved values.", Alert.AlertType.WARNING);
+                    reloadEntity(stage);
+                } else {
+                    Alerts.showAlert("Concurrent modification",null,Utils.rootCause(error).getMessage(),
+                            Alert.AlertType.WARNING);
+                }
+            } else {
+                Alerts.showAlert("Error saving department",null,Utils.rootCause(error).getMessage(), Alert.AlertType.ERROR);
+            }
+        }, Platform::runLater);
+    }
+
+    private void reloadEntity(Stage stage) {
+        Department stale = entity;
+        Integer id = stale.getId();
+        List<DataChangeListener<Department>> listeners = new ArrayList<>(dataChangeListeners);
+        int reloadSession = session;
+        service.findByIdAsync(id).whenCompleteAsync((latest, error) -> {
+            if (reloadSession != session) {
+                return;
+            }
+            if (error != null) {
+                Alerts.showAlert("Error loading department",null,Utils.rootCause(error).getMessage(), Alert.AlertType.ERROR);
+                return;
+            }
+            if (latest == null) {
+                notifyDataChangeListener(listeners, DataChangeEvent.deleted(stale, id));
+                stage.close();
+                return;
+            }
+            entity = latest;
+            updateFormData();
+            notifyDataChangeListener(listeners, DataChangeEvent.updated(latest, id));
+        }, Platform::runLater);
     }
 
     private void setErrorMessages(Map<String, String> errorsMessage) {
@@ -79,6 +138,16 @@ public class DepartmentFormController implements Initializable {
         initializeNodes();
     }
 
+    @Override
+    public void reset() {
+        session++;
+        entity = null;
+        service = null;
+        dataChangeListeners.clear();
+        labelErrorName.setText("");
+        buttonSave.setDisable(false);
+    }
+
     public void setEntity(Department entity) {
         this.entity = entity;
     }
@@ -95,21 +164,16 @@ public class DepartmentFormController implements Initializable {
         textFieldName.setText(entity.getName());
     }
 
-    public void subscribeDataChangeListener(DataChangeListener listener) {
+    public void subscribeDataChangeListener(DataChangeListener<Department> listener) {
         dataChangeListeners.add(listener);
     }
 
     private Department getFormData() {
-        ValidationException validationException = new ValidationException("Error validation");
         Department department = new Department();
         department.setId(Utils.tryParseToInt(textFieldId.getText()));
-        if (textFieldName.getText() == null || textFieldName.getText().trim().equals("")) {
-            validationException.addErrorMessage("name","Field can't be empty");
-        }
+        department.setVersion(entity.getVersion());
         department.setName(textFieldName.getText());
-        if (validationException.getErrorsMessage().size() > 0) {
-            throw validationException;
-        }
+        Validators.DEPARTMENT.validate(department);
         return department;
     }
 
@@ -118,9 +182,10 @@ public class DepartmentFormController implements Initializable {
         Constraints.setTextFieldMaxValue(textFieldName,30);
     }
 
-    private void notifyDataChangeListener(){
-        for (DataChangeListener listener : dataChangeListeners) {
-            listener.onDataChange();
+    private void notifyDataChangeListener(List<DataChangeListener<Department>> listeners,
+                                          DataChangeEvent<Department> event){
+        for (DataChangeListener<Department> listener : listeners) {
+            listener.onDataChange(event);
         }
     }
 }
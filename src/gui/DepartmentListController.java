@@ -1,33 +1,39 @@
 package gui;
 
-import application.Main;
-import db.DBIntegrityException;
+import gui.listeners.DataChangeEvent;
 import gui.listeners.DataChangeListener;
 import gui.util.Alerts;
+import gui.util.Resettable;
 import gui.util.Utils;
+import gui.util.ViewCache;
+import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.scene.layout.Pane;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import jdk.jshell.execution.Util;
+import model.dao.ChangeType;
 import model.entities.Department;
+import model.services.ChangeFeedListener;
 import model.services.DepartmentService;
+import model.services.Snapshot;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 
-public class DepartmentListController implements Initializable, DataChangeListener {
+public class DepartmentListController implements Initializable, Resettable, DataChangeListener<Department>,
+        ChangeFeedListener<Department> {
 
     private DepartmentService departmentService;
 
@@ -51,6 +57,10 @@ public class DepartmentListController implements Initializable, DataChangeListen
 
     private ObservableList<Department> observableListDepartment;
 
+    private CompletableFuture<Snapshot<Department>> pendingRefresh;
+
+    private CompletableFuture<List<Department>> pendingReload;
+
     @FXML
     public void onBtnNewAction(ActionEvent event) {
         openDialogForm(new Department(), "/gui/DepartmentForm.fxml", Utils.currentStage(event));
@@ -63,43 +73,99 @@ public class DepartmentListController implements Initializable, DataChangeListen
     
     public void setDepartmentService(DepartmentService departmentService) {
         this.departmentService = departmentService;
+        departmentService.addChangeFeedListener(this);
     }
 
     public void updateTableView() {
         if (departmentService == null) {
             throw new IllegalStateException("Department Service was null");
         }
-        observableListDepartment = FXCollections.observableArrayList(departmentService.findAll());
+        if (pendingRefresh != null) {
+            pendingRefresh.cancel(true);
+        }
+        Snapshot<Department> snapshot = departmentService.getSnapshot();
+        if (snapshot != null) {
+            showDepartments(snapshot.getRows());
+        } else {
+            tableViewDepartment.setPlaceholder(new ProgressIndicator());
+        }
+        CompletableFuture<Snapshot<Department>> refresh = departmentService.syncSnapshotAsync(snapshot);
+        pendingRefresh = refresh;
+        refresh.whenCompleteAsync((fresh, error) -> {
+            if (refresh != pendingRefresh) {
+                return;
+            }
+            pendingRefresh = null;
+            tableViewDepartment.setPlaceholder(null);
+            if (error != null) {
+                Alerts.showAlert("Error loading departments",null,Utils.rootCause(error).getMessage(), Alert.AlertType.ERROR);
+                return;
+            }
+            if (snapshot == null) {
+                showDepartments(fresh.getRows());
+            } else if (fresh != snapshot) {
+                reconcile(fresh.getRows());
+            }
+        }, Platform::runLater);
+    }
+
+    private void showDepartments(List<Department> departments) {
+        observableListDepartment = FXCollections.observableArrayList(departments);
         tableViewDepartment.setItems(observableListDepartment);
-        initEditButton();
-        initDeleteButton();
+    }
+
+    private void reconcile(List<Department> departments) {
+        if (departments.size() != observableListDepartment.size()) {
+            observableListDepartment.setAll(departments);
+            return;
+        }
+        for (int i = 0; i < departments.size(); i++) {
+            Department current = observableListDepartment.get(i);
+            Department fresh = departments.get(i);
+            if (!current.equals(fresh) || !Objects.equals(current.getName(), fresh.getName())
+                    || !Objects.equals(current.getVersion(), fresh.getVersion())) {
+                observableListDepartment.set(i, fresh);
+            }
+        }
     }
 
     private void initializeNode() {
         tableColumnId.setCellValueFactory(new PropertyValueFactory<>("id"));
         tableColumnName.setCellValueFactory(new PropertyValueFactory<>("name"));
-        Stage stage = (Stage) Main.getMainScene().getWindow();
-        tableViewDepartment.prefHeightProperty().bind(stage.heightProperty());
-        tableViewDepartment.prefWidthProperty().bind(stage.widthProperty());
+        Utils.bindSizeToWindow(tableViewDepartment);
+        initEditButton();
+        initDeleteButton();
+    }
+
+    @Override
+    public void reset() {
+        if (pendingRefresh != null) {
+            pendingRefresh.cancel(true);
+            pendingRefresh = null;
+        }
+        pendingReload = null;
+        observableListDepartment = null;
+        tableViewDepartment.setItems(FXCollections.observableArrayList());
     }
 
     private void openDialogForm(Department department, String absoluteName, Stage parentStage) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource(absoluteName));
-            Pane pane = loader.load();
-            DepartmentFormController departmentFormController = loader.getController();
+            ViewCache.View<DepartmentFormController> view = ViewCache.getInstance().acquire(absoluteName);
+            DepartmentFormController departmentFormController = view.getController();
             departmentFormController.setEntity(department);
             departmentFormController.setService(new DepartmentService());
             departmentFormController.subscribeDataChangeListener(this);
             departmentFormController.updateFormData();
 
             Stage modalStage = new Stage();
-            modalStage.setScene(new Scene(pane));
+            modalStage.setScene(view.getScene());
             modalStage.setTitle("Enter department data");
             modalStage.setResizable(false);
             modalStage.initOwner(parentStage);
             modalStage.initModality(Modality.WINDOW_MODAL);
             modalStage.showAndWait();
+            modalStage.setScene(null);
+            ViewCache.getInstance().release(view);
         } catch (IOException e) {
             e.printStackTrace();
             Alerts.showAlert("IO Exception","Error opening view",e.getMessage(), Alert.AlertType.ERROR);
@@ -107,8 +173,44 @@ public class DepartmentListController implements Initializable, DataChangeListen
     }
 
     @Override
-    public void onDataChange() {
-        updateTableView();
+    public void onDataChange(DataChangeEvent<Department> event) {
+        if (observableListDepartment == null) {
+            if (tableViewDepartment.getScene() != null) {
+                updateTableView();
+            }
+            return;
+        }
+        switch (event.getType()) {
+            case INSERTED:
+            case UPDATED:
+                reloadDepartments();
+                break;
+            case DELETED:
+                observableListDepartment.remove(event.getEntity());
+                break;
+        }
+    }
+
+    @Override
+    public void onChange(ChangeType type, int id, Department department) {
+        Platform.runLater(() -> onDataChange(new DataChangeEvent<>(DataChangeEvent.Type.valueOf(type.name()), department, id)));
+    }
+
+    // the list is small and cached, and re-reading it keeps the order the database collation gives it
+    private void reloadDepartments() {
+        CompletableFuture<List<Department>> reload = departmentService.findAllAsync();
+        pendingReload = reload;
+        reload.whenCompleteAsync((departments, error) -> {
+            if (reload != pendingReload || observableListDepartment == null) {
+                return;
+            }
+            pendingReload = null;
+            if (error != null) {
+                Alerts.showAlert("Error loading departments",null,Utils.rootCause(error).getMessage(), Alert.AlertType.ERROR);
+                return;
+            }
+            reconcile(departments);
+        }, Platform::runLater);
     }
 
     private void initEditButton() {
@@ -154,12 +256,13 @@ public class DepartmentListController implements Initializable, DataChangeListen
         }
         Optional<ButtonType> result = Alerts.showConfirmation("Deleting department","Are you sure to delete");
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            try {
-                departmentService.delete(department);
-                updateTableView();
-            } catch (DBIntegrityException e) {
-                Alerts.showAlert("Error deleting department",null,e.getMessage(), Alert.AlertType.ERROR);
-            }
+            departmentService.deleteAsync(department).whenCompleteAsync((ignored, error) -> {
+                if (error == null) {
+                    onDataChange(DataChangeEvent.deleted(department, department.getId()));
+                } else {
+                    Alerts.showAlert("Error deleting department",null,Utils.rootCause(error).getMessage(), Alert.AlertType.ERROR);
+                }
+            }, Platform::runLater);
         }
     }
 }
@@ -2,8 +2,8 @@ package gui;
 
 import application.Main;
 import gui.util.Alerts;
+import gui.util.ViewCache;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.Node;
 import javafx.scene.Scene;
@@ -30,6 +30,8 @@ public class MainViewController implements Initializable {
     @FXML
     private MenuItem menuItemAbout;
 
+    private ViewCache.View<?> currentView;
+
     @FXML
     public void onMenuItemSellerAction(){
         showView("/gui/SellerList.fxml", (SellerListController controller) -> {
@@ -58,16 +60,19 @@ public class MainViewController implements Initializable {
 
     private synchronized <T> void showView(String absoluteName, Consumer<T> initializingAction) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource(absoluteName));
-            VBox newVBox = loader.load();
-
             Scene mainScene = Main.getMainScene();
             VBox mainVBox = (VBox) ((ScrollPane) mainScene.getRoot()).getContent();
             Node menuBar = mainVBox.getChildren().get(0);
             mainVBox.getChildren().clear();
             mainVBox.getChildren().add(menuBar);
-            mainVBox.getChildren().addAll(newVBox);
-            initializingAction.accept(loader.getController());
+            if (currentView != null) {
+                ViewCache.getInstance().release(currentView);
+                currentView = null;
+            }
+            ViewCache.View<T> view = ViewCache.getInstance().acquire(absoluteName);
+            currentView = view;
+            mainVBox.getChildren().addAll(view.getRoot());
+            initializingAction.accept(view.getController());
         } catch (IOException e) {
             Alerts.showAlert("IO Exception","Error loading view",e.getMessage(), Alert.AlertType.ERROR);
         }
@@ -1,27 +1,33 @@
 package gui;
 
-import db.DBException;
+import db.DBConcurrencyException;
+import gui.listeners.DataChangeEvent;
 import gui.listeners.DataChangeListener;
 import gui.util.Alerts;
 import gui.util.Constraints;
+import gui.util.Resettable;
 import gui.util.Utils;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
+import javafx.stage.Stage;
 import javafx.util.Callback;
 import model.entities.Department;
 import model.entities.Seller;
 import model.exceptions.ValidationException;
 import model.services.DepartmentService;
 import model.services.SellerService;
+import model.services.Validators;
 
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
-public class SellerFormController implements Initializable {
+public class SellerFormController implements Initializable, Resettable {
 
     private Seller entity;
 
@@ -29,7 +35,10 @@ public class SellerFormController implements Initializable {
 
     private DepartmentService departmentService;
 
-    private List<DataChangeListener> dataChangeListeners = new ArrayList<>();
+    private List<DataChangeListener<Seller>> dataChangeListeners = new ArrayList<>();
+
+    // bumped on every reset, so callbacks started for an earlier dialog leave the pooled form alone
+    private int session = 0;
 
     @FXML
     private TextField textFieldId;
@@ -79,14 +88,68 @@ public class SellerFormController implements Initializable {
         }
         try {
             entity = getFormData();
-            service.insertOrUpdate(entity);
-            notifyDataChangeListener();
-            Utils.currentStage(event).close();
         } catch (ValidationException e) {
             setErrorMessages(e.getErrorsMessage());
-        } catch (DBException e) {
-            Alerts.showAlert("Error saving department",null,e.getMessage(), Alert.AlertType.ERROR);
+            return;
         }
+        Stage stage = Utils.currentStage(event);
+        Seller saved = entity;
+        boolean inserting = saved.getId() == null;
+        boolean writeBehind = service.isWriteBehind();
+        List<DataChangeListener<Seller>> listeners = new ArrayList<>(dataChangeListeners);
+        int savedSession = session;
+        buttonSave.setDisable(true);
+        service.insertOrUpdateAsync(saved).whenCompleteAsync((ignored, error) -> {
+            boolean open = savedSession == session;
+            if (open) {
+                buttonSave.setDisable(false);
+            }
+            if (error == null) {
+                if (!inserting) {
+                    notifyDataChangeListener(listeners, DataChangeEvent.updated(saved, saved.getId()));
+                } else if (!writeBehind) {
+                    notifyDataChangeListener(listeners, DataChangeEvent.inserted(saved, saved.getId()));
+                }
+                if (open) {
+                    stage.close();
+                }
+            } else if (Utils.rootCause(error) instanceof DBConcurrencyException) {
+                if (open) {
+                    Alerts.showAlert("Concurrent modification",null,Utils.rootCause(error).getMessage()
+                            + ". The form was reloaded with the latest saved values.", Alert.AlertType.WARNING);
+                    reloadEntity(stage);
+                } else {
+                    Alerts.showAlert("Concurrent modification",null,Utils.rootCause(error).getMessage(),
+                            Alert.AlertType.WARNING);
+                }
+            } else {
+                Alerts.showAlert("Error saving department",null,Utils.rootCause(error).getMessage(), Alert.AlertType.ERROR);
+            }
+        }, Platform::runLater);
+    }
+
+    private void reloadEntity(Stage stage) {
+        Seller stale = entity;
+        Integer id = stale.getId();
+        List<DataChangeListener<Seller>> listeners = new ArrayList<>(dataChangeListeners);
+        int reloadSession = session;
+        service.findByIdAsync(id).whenCompleteAsync((latest, error) -> {
+            if (reloadSession != session) {
+                return;
+            }
+            if (error != null) {
+                Alerts.showAlert("Error loading seller",null,Utils.rootCause(error).getMessage(), Alert.AlertType.ERROR);
+                return;
+            }
+            if (latest == null) {
+                notifyDataChangeListener(listeners, DataChangeEvent.deleted(stale, id));
+                stage.close();
+                return;
+            }
+            entity = latest;
+            updateFormData();
+            notifyDataChangeListener(listeners, DataChangeEvent.updated(latest, id));
+        }, Platform::runLater);
     }
 
     private void setErrorMessages(Map<String, String> errorsMessage) {
@@ -107,6 +170,18 @@ public class SellerFormController implements Initializable {
         initializeNodes();
     }
 
+    @Override
+    public void reset() {
+        session++;
+        entity = null;
+        service = null;
+        departmentService = null;
+        dataChangeListeners.clear();
+        setErrorMessages(Collections.emptyMap());
+        comboBoxDepartment.setPromptText(null);
+        buttonSave.setDisable(false);
+    }
+
     public void setEntity(Seller entity) {
         this.entity = entity;
     }
@@ -123,17 +198,12 @@ public class SellerFormController implements Initializable {
         textFieldId.setText(String.valueOf(entity.getId()));
         textFieldName.setText(entity.getName());
         textFieldEmail.setText(entity.getEmail());
-        Locale.setDefault(Locale.US);
-        textFieldBaseSalary.setText(String.format("%.2f",entity.getBaseSalary()));
+        textFieldBaseSalary.setText(entity.getBaseSalary() == null ? "" : Utils.formatDecimal(entity.getBaseSalary(),2));
         datePickerBirthDate.setValue(entity.getBirthDate());
-        if (entity.getDepartment() == null) {
-            comboBoxDepartment.getSelectionModel().selectFirst();
-        } else {
-            comboBoxDepartment.setValue(entity.getDepartment());
-        }
+        selectDepartment();
     }
 
-    public void subscribeDataChangeListener(DataChangeListener listener) {
+    public void subscribeDataChangeListener(DataChangeListener<Seller> listener) {
         dataChangeListeners.add(listener);
     }
 
@@ -141,8 +211,42 @@ public class SellerFormController implements Initializable {
         if (departmentService == null) {
             throw new IllegalStateException("Department Service was null");
         }
-        observableListDepartment = FXCollections.observableArrayList(departmentService.findAll());
+        CompletableFuture<List<Department>> departments = departmentService.findAllAsync();
+        if (departments.isDone() && !departments.isCompletedExceptionally()) {
+            setDepartments(departments.join());
+            return;
+        }
+        comboBoxDepartment.setPromptText("Loading...");
+        buttonSave.setDisable(true);
+        int loadSession = session;
+        departments.whenCompleteAsync((loaded, error) -> {
+            if (loadSession != session) {
+                return;
+            }
+            comboBoxDepartment.setPromptText(null);
+            if (error != null) {
+                Alerts.showAlert("Error loading departments",null,Utils.rootCause(error).getMessage(), Alert.AlertType.ERROR);
+                return;
+            }
+            buttonSave.setDisable(false);
+            setDepartments(loaded);
+        }, Platform::runLater);
+    }
+
+    private void setDepartments(List<Department> departments) {
+        observableListDepartment = FXCollections.observableArrayList(departments);
         comboBoxDepartment.setItems(observableListDepartment);
+        if (entity != null) {
+            selectDepartment();
+        }
+    }
+
+    private void selectDepartment() {
+        if (entity.getDepartment() == null) {
+            comboBoxDepartment.getSelectionModel().selectFirst();
+        } else {
+            comboBoxDepartment.setValue(entity.getDepartment());
+        }
     }
 
     private void initializeComboBoxDepartment() {
@@ -158,34 +262,15 @@ public class SellerFormController implements Initializable {
     }
 
     private Seller getFormData() {
-        ValidationException validationException = new ValidationException("Error validation");
         Seller seller = new Seller();
         seller.setId(Utils.tryParseToInt(textFieldId.getText()));
-
-        if (textFieldName.getText() == null || textFieldName.getText().trim().equals("")) {
-            validationException.addErrorMessage("name","Field can't be empty");
-        }
+        seller.setVersion(entity.getVersion());
         seller.setName(textFieldName.getText());
-
-        if (!Utils.isEmailValid(textFieldEmail.getText())) {
-            validationException.addErrorMessage("email","Invalid value");
-        }
         seller.setEmail(textFieldEmail.getText());
-
-        Double baseSalary = Utils.tryParseToDouble(textFieldBaseSalary.getText());
-        if (baseSalary == null || baseSalary <= 0) {
-            validationException.addErrorMessage("baseSalary","Value must be greater than zero");
-        }
-        seller.setBaseSalary(baseSalary);
-
-        if (datePickerBirthDate.getValue() == null) {
-            validationException.addErrorMessage("birthDate","Field can't be empty");
-        }
+        seller.setBaseSalary(Utils.tryParseToDouble(textFieldBaseSalary.getText()));
         seller.setBirthDate(datePickerBirthDate.getValue());
         seller.setDepartment(comboBoxDepartment.getValue());
-        if (validationException.getErrorsMessage().size() > 0) {
-            throw validationException;
-        }
+        Validators.SELLER.validate(seller);
         return seller;
     }
 
@@ -198,9 +283,9 @@ public class SellerFormController implements Initializable {
         initializeComboBoxDepartment();
     }
 
-    private void notifyDataChangeListener(){
-        for (DataChangeListener listener : dataChangeListeners) {
-            listener.onDataChange();
+    private void notifyDataChangeListener(List<DataChangeListener<Seller>> listeners, DataChangeEvent<Seller> event){
+        for (DataChangeListener<Seller> listener : listeners) {
+            listener.onDataChange(event);
         }
     }
 }
@@ -1,40 +1,76 @@
 package gui;
 
-import application.Main;
-import db.DBIntegrityException;
+import gui.listeners.DataChangeEvent;
 import gui.listeners.DataChangeListener;
 import gui.util.Alerts;
+import gui.util.PagedObservableList;
+import gui.util.Resettable;
 import gui.util.Utils;
+import gui.util.ViewCache;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.scene.layout.Pane;
+import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import model.dao.ChangeType;
+import model.dao.SellerCursor;
+import model.dao.SellerQuery;
 import model.entities.Seller;
+import model.services.ChangeFeedListener;
 import model.services.DepartmentService;
+import model.services.ExportFormat;
 import model.services.SellerService;
+import model.services.Snapshot;
+import model.services.WriteBehindListener;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 
-public class SellerListController implements Initializable, DataChangeListener {
+public class SellerListController implements Initializable, Resettable, DataChangeListener<Seller>,
+        WriteBehindListener<Seller>, ChangeFeedListener<Seller> {
 
-    private SellerService departmentService;
+    // the table follows the database collation; this only detects updates that change a row's sort key
+    private static final Comparator<Seller> SELLER_ORDER =
+            Comparator.comparing(Seller::getName).thenComparing(Seller::getId);
+
+    private static final int PAGE_SIZE = 200;
+
+    private static final int MAX_LOADED_PAGES = 10;
+
+    private static final Duration SEARCH_DELAY = Duration.millis(300);
+
+    private SellerService sellerService;
 
     @FXML
     private Button btnNew;
 
+    @FXML
+    private TextField textFieldSearch;
+
+    @FXML
+    private Button btnImport;
+
+    @FXML
+    private Button btnExport;
+
+    @FXML
+    private ProgressBar progressBarExport;
+
     @FXML
     private TableView<Seller> tableViewSeller;
 
@@ -59,30 +95,180 @@ public class SellerListController implements Initializable, DataChangeListener {
     @FXML
     private TableColumn<Seller,Seller> tableColumnRemove;
 
-    private ObservableList<Seller> observableListSeller;
+    private PagedObservableList<Seller> observableListSeller;
+
+    private CompletableFuture<?> pendingRefresh;
+
+    private SellerQuery sellerQuery = new SellerQuery();
+
+    private final PauseTransition searchDelay = new PauseTransition(SEARCH_DELAY);
 
     @FXML
     public void onBtnNewAction(ActionEvent event) {
         openDialogForm(new Seller(), "/gui/SellerForm.fxml", Utils.currentStage(event));
     }
 
+    @FXML
+    public void onBtnImportAction(ActionEvent event) {
+        if (sellerService == null) {
+            throw new IllegalStateException("Seller Service was null");
+        }
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Import sellers");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV", "*.csv", "*.csv.gz"));
+        File file = fileChooser.showOpenDialog(Utils.currentStage(event));
+        if (file == null) {
+            return;
+        }
+        File rejectFile = new File(file.getParentFile(), file.getName().replaceFirst("(?i)\\.csv(\\.gz)?$", "") + ".rejects.csv");
+        btnImport.setDisable(true);
+        progressBarExport.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+        progressBarExport.setVisible(true);
+        sellerService.importFileAsync(file.toPath(), rejectFile.toPath()).whenCompleteAsync((report, error) -> {
+            btnImport.setDisable(false);
+            progressBarExport.setVisible(false);
+            if (error != null) {
+                Alerts.showAlert("Error importing sellers",null,Utils.rootCause(error).getMessage(), Alert.AlertType.ERROR);
+                return;
+            }
+            Alerts.showAlert("Import finished",null,report.toString(),
+                    report.getRejected() == 0 ? Alert.AlertType.INFORMATION : Alert.AlertType.WARNING);
+            if (tableViewSeller.getScene() != null) {
+                updateTableView();
+            }
+        }, Platform::runLater);
+    }
+
+    @FXML
+    public void onBtnExportAction(ActionEvent event) {
+        if (sellerService == null) {
+            throw new IllegalStateException("Seller Service was null");
+        }
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export sellers");
+        fileChooser.setInitialFileName("sellers.csv");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV", "*.csv"),
+                new FileChooser.ExtensionFilter("CSV (gzip)", "*.csv.gz"),
+                new FileChooser.ExtensionFilter("JSON", "*.json"),
+                new FileChooser.ExtensionFilter("JSON (gzip)", "*.json.gz"));
+        File file = fileChooser.showSaveDialog(Utils.currentStage(event));
+        if (file == null) {
+            return;
+        }
+        btnExport.setDisable(true);
+        progressBarExport.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+        progressBarExport.setVisible(true);
+        sellerService.exportAsync(file.toPath(), ExportFormat.fromFileName(file.getName()),
+                file.getName().toLowerCase().endsWith(".gz"),
+                (rows, total) -> Platform.runLater(() -> progressBarExport.setProgress(total == 0 ? 1 : (double) rows / total)))
+                .whenCompleteAsync((rows, error) -> {
+                    btnExport.setDisable(false);
+                    progressBarExport.setVisible(false);
+                    if (error != null) {
+                        Alerts.showAlert("Error exporting sellers",null,Utils.rootCause(error).getMessage(), Alert.AlertType.ERROR);
+                    } else {
+                        Alerts.showAlert("Export finished",null,rows + " sellers exported to " + file, Alert.AlertType.INFORMATION);
+                    }
+                }, Platform::runLater);
+    }
+
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         initializeNode();
     }
     
-    public void setSellerService(SellerService departmentService) {
-        this.departmentService = departmentService;
+    public void setSellerService(SellerService sellerService) {
+        this.sellerService = sellerService;
+        sellerService.addWriteBehindListener(this);
+        sellerService.addChangeFeedListener(this);
     }
 
     public void updateTableView() {
-        if (departmentService == null) {
+        if (sellerService == null) {
             throw new IllegalStateException("Seller Service was null");
         }
-        observableListSeller = FXCollections.observableArrayList(departmentService.findAll());
+        if (pendingRefresh != null) {
+            pendingRefresh.cancel(true);
+        }
+        if (observableListSeller != null) {
+            observableListSeller.dispose();
+            observableListSeller = null;
+        }
+        tableViewSeller.setItems(FXCollections.observableArrayList());
+        tableViewSeller.setPlaceholder(new ProgressIndicator());
+
+        SellerQuery query = sellerQuery;
+        if (query.isEmpty()) {
+            syncFromSnapshot(query);
+            return;
+        }
+        CompletableFuture<Integer> refresh = sellerService.countAsync(query);
+        pendingRefresh = refresh;
+        refresh.whenCompleteAsync((count, error) -> {
+            if (refresh != pendingRefresh) {
+                return;
+            }
+            pendingRefresh = null;
+            tableViewSeller.setPlaceholder(null);
+            if (error != null) {
+                Alerts.showAlert("Error loading sellers",null,Utils.rootCause(error).getMessage(), Alert.AlertType.ERROR);
+                return;
+            }
+            showSellers(new PagedObservableList<>(pageSource(query), SELLER_ORDER, count, PAGE_SIZE, MAX_LOADED_PAGES));
+        }, Platform::runLater);
+    }
+
+    private void syncFromSnapshot(SellerQuery query) {
+        Snapshot<Seller> snapshot = sellerService.getSnapshot();
+        if (snapshot != null) {
+            showSellers(new PagedObservableList<>(pageSource(query), SELLER_ORDER, snapshot.getRows(),
+                    snapshot.getSyncState().getCount(), PAGE_SIZE, MAX_LOADED_PAGES));
+        }
+        CompletableFuture<Snapshot<Seller>> refresh = sellerService.syncSnapshotAsync(snapshot, PAGE_SIZE);
+        pendingRefresh = refresh;
+        refresh.whenCompleteAsync((fresh, error) -> {
+            if (refresh != pendingRefresh) {
+                return;
+            }
+            pendingRefresh = null;
+            tableViewSeller.setPlaceholder(null);
+            if (error != null) {
+                Alerts.showAlert("Error loading sellers",null,Utils.rootCause(error).getMessage(), Alert.AlertType.ERROR);
+                return;
+            }
+            if (observableListSeller == null) {
+                showSellers(new PagedObservableList<>(pageSource(query), SELLER_ORDER, fresh.getRows(),
+                        fresh.getSyncState().getCount(), PAGE_SIZE, MAX_LOADED_PAGES));
+            } else if (fresh != snapshot) {
+                observableListSeller.reconcile(fresh.getRows(), fresh.getSyncState().getCount());
+            }
+        }, Platform::runLater);
+    }
+
+    private PagedObservableList.PageSource<Seller> pageSource(SellerQuery query) {
+        return new PagedObservableList.PageSource<>() {
+            @Override
+            public CompletableFuture<List<Seller>> loadAfter(Seller last, int limit) {
+                return sellerService.findPageAsync(query, last == null ? null : SellerCursor.of(last), limit);
+            }
+
+            @Override
+            public CompletableFuture<List<Seller>> loadAt(int offset, int limit) {
+                return sellerService.findPageAtAsync(query, offset, limit);
+            }
+
+            @Override
+            public CompletableFuture<Integer> positionOf(Seller seller) {
+                return sellerService.countBeforeAsync(query, seller);
+            }
+        };
+    }
+
+    private void showSellers(PagedObservableList<Seller> sellers) {
+        observableListSeller = sellers;
         tableViewSeller.setItems(observableListSeller);
-        initEditButton();
-        initDeleteButton();
     }
 
     private void initializeNode() {
@@ -93,17 +279,32 @@ public class SellerListController implements Initializable, DataChangeListener {
         tableColumnBaseSalary.setCellValueFactory(new PropertyValueFactory<>("baseSalary"));
         Utils.formatTableColumnDate(tableColumnBirthDate,"dd/MM/yyyy");
         Utils.formatTableColumnDouble(tableColumnBaseSalary,2);
+        initEditButton();
+        initDeleteButton();
+        initSearchField();
+        Utils.bindSizeToWindow(tableViewSeller);
+    }
 
-        Stage stage = (Stage) Main.getMainScene().getWindow();
-        tableViewSeller.prefHeightProperty().bind(stage.heightProperty());
-        tableViewSeller.prefWidthProperty().bind(stage.widthProperty());
+    @Override
+    public void reset() {
+        if (pendingRefresh != null) {
+            pendingRefresh.cancel(true);
+            pendingRefresh = null;
+        }
+        if (observableListSeller != null) {
+            observableListSeller.dispose();
+            observableListSeller = null;
+        }
+        tableViewSeller.setItems(FXCollections.observableArrayList());
+        textFieldSearch.setText("");
+        searchDelay.stop();
+        sellerQuery = new SellerQuery();
     }
 
     private void openDialogForm(Seller department, String absoluteName, Stage parentStage) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource(absoluteName));
-            Pane pane = loader.load();
-            SellerFormController departmentFormController = loader.getController();
+            ViewCache.View<SellerFormController> view = ViewCache.getInstance().acquire(absoluteName);
+            SellerFormController departmentFormController = view.getController();
             departmentFormController.setEntity(department);
             departmentFormController.setServices(new SellerService(), new DepartmentService());
             departmentFormController.loadAssociateObject();
@@ -111,21 +312,88 @@ public class SellerListController implements Initializable, DataChangeListener {
             departmentFormController.updateFormData();
 
             Stage modalStage = new Stage();
-            modalStage.setScene(new Scene(pane));
+            modalStage.setScene(view.getScene());
             modalStage.setTitle("Enter department data");
             modalStage.setResizable(false);
             modalStage.initOwner(parentStage);
             modalStage.initModality(Modality.WINDOW_MODAL);
             modalStage.showAndWait();
+            modalStage.setScene(null);
+            ViewCache.getInstance().release(view);
         } catch (IOException e) {
             e.printStackTrace();
             Alerts.showAlert("IO Exception","Error opening view",e.getMessage(), Alert.AlertType.ERROR);
         }
     }
 
+    private void initSearchField() {
+        searchDelay.setOnFinished(event -> {
+            String text = textFieldSearch.getText() == null ? "" : textFieldSearch.getText().trim();
+            SellerQuery query = new SellerQuery();
+            if (text.contains("@")) {
+                query.setEmail(text);
+            } else {
+                query.setNamePrefix(text);
+            }
+            sellerQuery = query;
+            if (sellerService != null) {
+                updateTableView();
+            }
+        });
+        textFieldSearch.textProperty().addListener((obs, oldValue, newValue) -> searchDelay.playFromStart());
+    }
+
+    @Override
+    public void onDataChange(DataChangeEvent<Seller> event) {
+        if (observableListSeller == null) {
+            if (tableViewSeller.getScene() != null) {
+                updateTableView();
+            }
+            return;
+        }
+        boolean matches = sellerQuery.matches(event.getEntity());
+        switch (event.getType()) {
+            case INSERTED:
+                if (matches) {
+                    observableListSeller.insertRow(event.getEntity());
+                }
+                break;
+            case UPDATED:
+                if (matches) {
+                    observableListSeller.updateRow(event.getEntity());
+                } else {
+                    observableListSeller.removeRow(event.getEntity());
+                }
+                break;
+            case DELETED:
+                // the event type says it is a delete; the entity may carry nothing but its id
+                observableListSeller.removeRow(event.getEntity());
+                break;
+        }
+    }
+
     @Override
-    public void onDataChange() {
-        updateTableView();
+    public void onChange(ChangeType type, int id, Seller seller) {
+        Platform.runLater(() -> onDataChange(new DataChangeEvent<>(DataChangeEvent.Type.valueOf(type.name()), seller, id)));
+    }
+
+    @Override
+    public void onFlushed(Seller seller, boolean inserted) {
+        Platform.runLater(() -> onDataChange(inserted
+                ? DataChangeEvent.inserted(seller, seller.getId())
+                : DataChangeEvent.updated(seller, seller.getId())));
+    }
+
+    @Override
+    public void onFailed(Seller seller, String message) {
+        Platform.runLater(() -> {
+            Alerts.showAlert("Error saving seller",null,message, Alert.AlertType.ERROR);
+            if (seller.getId() != null) {
+                sellerService.findByIdAsync(seller.getId()).thenAcceptAsync(latest -> onDataChange(latest == null
+                        ? DataChangeEvent.deleted(seller, seller.getId())
+                        : DataChangeEvent.updated(latest, latest.getId())), Platform::runLater);
+            }
+        });
     }
 
     private void initEditButton() {
@@ -166,17 +434,18 @@ public class SellerListController implements Initializable, DataChangeListener {
     }
 
     private void removeEntity(Seller department) {
-        if (departmentService == null) {
+        if (sellerService == null) {
             throw new IllegalStateException("Service was null");
         }
         Optional<ButtonType> result = Alerts.showConfirmation("Deleting department","Are you sure to delete");
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            try {
-                departmentService.delete(department);
-                updateTableView();
-            } catch (DBIntegrityException e) {
-                Alerts.showAlert("Error deleting department",null,e.getMessage(), Alert.AlertType.ERROR);
-            }
+            sellerService.deleteAsync(department).whenCompleteAsync((ignored, error) -> {
+                if (error == null) {
+                    onDataChange(DataChangeEvent.deleted(department, department.getId()));
+                } else {
+                    Alerts.showAlert("Error deleting department",null,Utils.rootCause(error).getMessage(), Alert.AlertType.ERROR);
+                }
+            }, Platform::runLater);
         }
     }
 }
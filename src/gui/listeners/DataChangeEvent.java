@@ -0,0 +1,53 @@
+package gui.listeners;
+
+public class DataChangeEvent<T> {
+
+    public enum Type {
+        INSERTED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+    private final T entity;
+    private final Integer id;
+
+    public DataChangeEvent(Type type, T entity, Integer id) {
+        this.type = type;
+        this.entity = entity;
+        this.id = id;
+    }
+
+    public static <T> DataChangeEvent<T> inserted(T entity, Integer id) {
+        return new DataChangeEvent<>(Type.INSERTED, entity, id);
+    }
+
+    public static <T> DataChangeEvent<T> updated(T entity, Integer id) {
+        return new DataChangeEvent<>(Type.UPDATED, entity, id);
+    }
+
+    public static <T> DataChangeEvent<T> deleted(T entity, Integer id) {
+        return new DataChangeEvent<>(Type.DELETED, entity, id);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public T getEntity() {
+        return entity;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "DataChangeEvent{" +
+                "type=" + type +
+                ", entity=" + entity +
+                ", id=" + id +
+                '}';
+    }
+}
@@ -1,7 +1,7 @@
 package gui.listeners;
 
-public interface DataChangeListener {
+public interface DataChangeListener<T> {
 
-    void onDataChange();
+    void onDataChange(DataChangeEvent<T> event);
     
 }
@@ -0,0 +1,32 @@
+package gui.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+class CellTextCache<T> {
+
+    private static final int MAX_ENTRIES = 1024;
+
+    private final Function<T, String> formatter;
+
+    private final Map<T, String> texts = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<T, String> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    CellTextCache(Function<T, String> formatter) {
+        this.formatter = formatter;
+    }
+
+    String textOf(T item) {
+        String text = texts.get(item);
+        if (text == null) {
+            text = formatter.apply(item);
+            texts.put(item, text);
+        }
+        return text;
+    }
+}
@@ -2,11 +2,17 @@ package gui.util;
 
 import javafx.scene.control.TextField;
 
+import java.util.regex.Pattern;
+
 public class Constraints {
 
+    private static final Pattern INTEGER_PATTERN = Pattern.compile("\\d*");
+
+    private static final Pattern DOUBLE_PATTERN = Pattern.compile("\\d*([.]\\d*)?");
+
     public static void setTextFieldInteger(TextField textField) {
         textField.textProperty().addListener( (obs,oldValue,newValue) -> {
-            if (newValue != null && !newValue.matches("\\d*")){
+            if (newValue != null && !INTEGER_PATTERN.matcher(newValue).matches()){
                 textField.setText(oldValue);
             }
         });
@@ -22,7 +28,7 @@ public class Constraints {
 
     public static  void setTextFieldDouble(TextField textField) {
         textField.textProperty().addListener((obs,oldValue,newValue) -> {
-            if (newValue != null && !newValue.matches("\\d*([.]\\d*)?")) {
+            if (newValue != null && !DOUBLE_PATTERN.matcher(newValue).matches()) {
                 textField.setText(oldValue);
             }
         });
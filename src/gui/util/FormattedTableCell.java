@@ -0,0 +1,30 @@
+package gui.util;
+
+import javafx.scene.control.TableCell;
+
+class FormattedTableCell<S, T> extends TableCell<S, T> {
+
+    private final CellTextCache<T> texts;
+
+    private T lastItem;
+
+    private String lastText;
+
+    FormattedTableCell(CellTextCache<T> texts) {
+        this.texts = texts;
+    }
+
+    @Override
+    protected void updateItem(T item, boolean empty) {
+        super.updateItem(item, empty);
+        if (empty || item == null) {
+            setText(null);
+            return;
+        }
+        if (item != lastItem) {
+            lastText = texts.textOf(item);
+            lastItem = item;
+        }
+        setText(lastText);
+    }
+}
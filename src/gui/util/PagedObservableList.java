@@ -0,0 +1,452 @@
+package gui.util;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+public class PagedObservableList<T> extends ObservableListBase<T> {
+
+    private static final long RETRY_DELAY_MILLIS = 1000;
+    private static final long MAX_RETRY_DELAY_MILLIS = 30000;
+
+    public interface PageSource<T> {
+        CompletableFuture<List<T>> loadAfter(T last, int limit);
+
+        CompletableFuture<List<T>> loadAt(int offset, int limit);
+
+        CompletableFuture<Integer> positionOf(T item);
+    }
+
+    private final PageSource<T> source;
+    // only tells whether an update can have moved a row; positions always come from the source's own ordering
+    private final Comparator<? super T> comparator;
+    private final int pageSize;
+    private final int maxLoadedPages;
+
+    private final TreeMap<Integer, Segment<T>> segments = new TreeMap<>();
+    private final Deque<Segment<T>> loadedSegments = new ArrayDeque<>();
+    private final List<CompletableFuture<?>> pendingLoads = new ArrayList<>();
+    private int size;
+    private int generation = 0;
+    private int reconciled = 0;
+    private boolean disposed = false;
+    private boolean requerying = false;
+    private boolean requeryAgain = false;
+    private int pendingSizeDelta = 0;
+
+    public PagedObservableList(PageSource<T> source, Comparator<? super T> comparator,
+                               int size, int pageSize, int maxLoadedPages) {
+        this.source = source;
+        this.comparator = comparator;
+        this.size = size;
+        this.pageSize = pageSize;
+        this.maxLoadedPages = maxLoadedPages;
+    }
+
+    public PagedObservableList(PageSource<T> source, Comparator<? super T> comparator, List<T> firstPage,
+                               int size, int pageSize, int maxLoadedPages) {
+        this(source, comparator, size, pageSize, maxLoadedPages);
+        if (!firstPage.isEmpty()) {
+            Segment<T> segment = new Segment<>(0, firstPage);
+            segments.put(0, segment);
+            touch(segment);
+        }
+    }
+
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        Map.Entry<Integer, Segment<T>> entry = segments.floorEntry(index);
+        if (entry != null && index < entry.getKey() + entry.getValue().count) {
+            return rowAt(entry.getValue(), index - entry.getKey());
+        }
+        loadGap(index);
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // the database counts the rows before it, so the row lands where its collation puts it
+    public void insertRow(T item) {
+        placeRow(item, true);
+    }
+
+    // fallback for changes whose position cannot be counted: the loaded pages are fetched again
+    public void requery(int sizeDelta) {
+        pendingSizeDelta += sizeDelta;
+        if (requerying) {
+            requeryAgain = true;
+            return;
+        }
+        startRequery();
+    }
+
+    public void updateRow(T item) {
+        for (Segment<T> segment : segments.values()) {
+            if (segment.rows != null) {
+                int position = segment.rows.indexOf(item);
+                if (position >= 0) {
+                    T old = segment.rows.get(position);
+                    segment.rows.set(position, item);
+                    beginChange();
+                    nextSet(segment.start + position, old);
+                    endChange();
+                    if (comparator.compare(old, item) != 0) {
+                        placeRow(item, false);
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    public boolean removeLoadedRow(T item) {
+        for (Segment<T> segment : segments.values()) {
+            if (segment.rows != null) {
+                int position = segment.rows.indexOf(item);
+                if (position >= 0) {
+                    removeAt(segment, position);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public void removeRow(T item) {
+        if (!removeLoadedRow(item)) {
+            requery(-1);
+        }
+    }
+
+    public void reconcile(List<T> firstPage, int newSize) {
+        cancelPendingLoads();
+        generation++;
+        reconciled++;
+        requerying = false;
+        requeryAgain = false;
+        pendingSizeDelta = 0;
+        Segment<T> first = segments.get(0);
+        List<T> oldRows = first == null || first.rows == null ? List.of() : first.rows;
+        segments.clear();
+        loadedSegments.clear();
+        if (!firstPage.isEmpty()) {
+            Segment<T> segment = new Segment<>(0, firstPage);
+            segments.put(0, segment);
+            touch(segment);
+        }
+        int oldSize = size;
+        size = newSize;
+        int common = Math.min(oldSize, newSize);
+        int known = Math.min(common, firstPage.size());
+        beginChange();
+        for (int i = 0; i < known; i++) {
+            nextSet(i, i < oldRows.size() ? oldRows.get(i) : null);
+        }
+        if (known < common) {
+            nextReplace(known, common, Collections.nCopies(common - known, null));
+        }
+        fireResized(oldSize);
+        endChange();
+    }
+
+    public void dispose() {
+        disposed = true;
+        cancelPendingLoads();
+    }
+
+    private void cancelPendingLoads() {
+        for (CompletableFuture<?> pendingLoad : new ArrayList<>(pendingLoads)) {
+            pendingLoad.cancel(true);
+        }
+        pendingLoads.clear();
+    }
+
+    private T rowAt(Segment<T> segment, int position) {
+        if (segment.rows == null) {
+            loadSegment(segment);
+            return null;
+        }
+        touch(segment);
+        return position < segment.rows.size() ? segment.rows.get(position) : null;
+    }
+
+    private void placeRow(T item, boolean inserted) {
+        if (disposed) {
+            return;
+        }
+        int trackedReconcile = reconciled;
+        source.positionOf(item).whenComplete((position, error) -> Platform.runLater(() -> {
+            if (disposed || trackedReconcile != reconciled) {
+                return;
+            }
+            if (error != null || requerying) {
+                requery(inserted ? 1 : 0);
+                return;
+            }
+            if (!inserted && !removeLoadedRow(item)) {
+                // removed while the position was counted
+                return;
+            }
+            insertAt(Math.min(position, size), item);
+        }));
+    }
+
+    private void insertAt(int position, T item) {
+        Map.Entry<Integer, Segment<T>> entry = segments.floorEntry(position);
+        Segment<T> segment = entry == null ? null : entry.getValue();
+        if (segment != null && position <= segment.start + segment.count) {
+            if (segment.rows != null) {
+                segment.rows.add(Math.min(position - segment.start, segment.rows.size()), item);
+                if (position == segment.start + segment.count) {
+                    segment.last = item;
+                }
+            } else if (segment.loading) {
+                segment.stale = true;
+            }
+            segment.count++;
+        }
+        shiftAfter(segment == null ? position - 1 : Math.max(segment.start, position - 1), 1);
+        size++;
+        beginChange();
+        nextAdd(position, position + 1);
+        endChange();
+    }
+
+    private void shiftAfter(int start, int delta) {
+        List<Segment<T>> following = new ArrayList<>(segments.tailMap(start, false).values());
+        for (Segment<T> each : following) {
+            segments.remove(each.start);
+            each.start += delta;
+        }
+        for (Segment<T> each : following) {
+            segments.put(each.start, each);
+        }
+    }
+
+    private void loadGap(int index) {
+        if (requerying || disposed) {
+            return;
+        }
+        Map.Entry<Integer, Segment<T>> previous = segments.floorEntry(index);
+        Integer next = segments.higherKey(index);
+        int gapStart = previous == null ? 0 : previous.getKey() + previous.getValue().count;
+        int gapEnd = next == null ? size : next;
+        // pages are laid out from the start of the gap, so scrolling on from a loaded page continues its keyset
+        int start = index - (index - gapStart) % pageSize;
+        Segment<T> segment = new Segment<>(start, Math.min(pageSize, gapEnd - start));
+        segments.put(start, segment);
+        loadSegment(segment);
+    }
+
+    private void loadSegment(Segment<T> segment) {
+        if (segment.loading || requerying || disposed || System.currentTimeMillis() < segment.retryAt) {
+            return;
+        }
+        segment.loading = true;
+        Map.Entry<Integer, Segment<T>> previous = segments.lowerEntry(segment.start);
+        CompletableFuture<List<T>> load;
+        if (segment.start == 0) {
+            load = source.loadAfter(null, segment.count);
+        } else if (previous != null && previous.getValue().last != null
+                && previous.getKey() + previous.getValue().count == segment.start) {
+            load = source.loadAfter(previous.getValue().last, segment.count);
+        } else {
+            load = source.loadAt(segment.start, segment.count);
+        }
+        track(load, rows -> {
+            segment.loading = false;
+            if (segments.get(segment.start) != segment) {
+                return;
+            }
+            if (rows == null) {
+                // every visible cell asks again, so back off instead of hammering a database that is down
+                segment.failures++;
+                segment.retryAt = System.currentTimeMillis()
+                        + Math.min(RETRY_DELAY_MILLIS << Math.min(segment.failures - 1, 5), MAX_RETRY_DELAY_MILLIS);
+                return;
+            }
+            segment.failures = 0;
+            segment.retryAt = 0;
+            if (segment.stale) {
+                // a row was placed into the range while it loaded; the next get fetches it again
+                segment.stale = false;
+                return;
+            }
+            segment.setRows(rows);
+            touch(segment);
+            fireRowsLoaded(segment);
+            if (rows.size() < segment.count) {
+                // the table ends before size says it does, rows were deleted since it was counted
+                requery(segment.start + rows.size() - size);
+            }
+        });
+    }
+
+    private void startRequery() {
+        cancelPendingLoads();
+        generation++;
+        requerying = true;
+        requeryAgain = false;
+        int sizeDelta = pendingSizeDelta;
+        pendingSizeDelta = 0;
+        List<Segment<T>> reloaded = new ArrayList<>();
+        List<CompletableFuture<List<T>>> loads = new ArrayList<>();
+        // the current rows stay on screen until their replacements arrive
+        for (Segment<T> segment : loadedSegments) {
+            int count = Math.min(segment.count, size + sizeDelta - segment.start);
+            if (count > 0) {
+                reloaded.add(new Segment<>(segment.start, count));
+                loads.add(source.loadAt(segment.start, count));
+            }
+        }
+        CompletableFuture<List<List<T>>> all = CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    List<List<T>> pages = new ArrayList<>();
+                    for (CompletableFuture<List<T>> load : loads) {
+                        pages.add(load.join());
+                    }
+                    return pages;
+                });
+        track(all, pages -> {
+            requerying = false;
+            List<Segment<T>> oldSegments = new ArrayList<>();
+            for (Segment<T> segment : segments.values()) {
+                if (segment.rows != null || segment.loading) {
+                    oldSegments.add(segment);
+                }
+            }
+            segments.clear();
+            loadedSegments.clear();
+            int oldSize = size;
+            size = Math.max(0, size + sizeDelta);
+            for (int i = reloaded.size() - 1; pages != null && i >= 0; i--) {
+                Segment<T> segment = reloaded.get(i);
+                segment.count = Math.min(segment.count, size - segment.start);
+                if (segment.count > 0) {
+                    segment.setRows(pages.get(i));
+                    segments.put(segment.start, segment);
+                    touch(segment);
+                }
+            }
+            beginChange();
+            int common = Math.min(oldSize, size);
+            for (Segment<T> segment : oldSegments) {
+                for (int i = segment.start; i < Math.min(segment.start + segment.count, common); i++) {
+                    int position = i - segment.start;
+                    nextSet(i, segment.rows != null && position < segment.rows.size() ? segment.rows.get(position) : null);
+                }
+            }
+            fireResized(oldSize);
+            endChange();
+            if (requeryAgain) {
+                startRequery();
+            }
+        });
+    }
+
+    private <R> void track(CompletableFuture<R> load, Consumer<R> onLoaded) {
+        int trackedGeneration = generation;
+        pendingLoads.add(load);
+        load.whenComplete((result, error) -> Platform.runLater(() -> {
+            pendingLoads.remove(load);
+            if (!disposed && trackedGeneration == generation) {
+                onLoaded.accept(error == null ? result : null);
+            }
+        }));
+    }
+
+    private void removeAt(Segment<T> segment, int position) {
+        T removed = segment.rows.remove(position);
+        int index = segment.start + position;
+        segment.count--;
+        size--;
+        if (segment.count == 0) {
+            segments.remove(segment.start);
+            loadedSegments.remove(segment);
+        }
+        shiftAfter(segment.start, -1);
+        if (requerying) {
+            // the pages being fetched may predate the removal
+            requeryAgain = true;
+        }
+        beginChange();
+        nextRemove(index, removed);
+        endChange();
+    }
+
+    private void fireResized(int oldSize) {
+        if (size > oldSize) {
+            nextAdd(oldSize, size);
+        } else if (size < oldSize) {
+            nextRemove(size, Collections.nCopies(oldSize - size, null));
+        }
+    }
+
+    private void fireRowsLoaded(Segment<T> segment) {
+        int to = Math.min(segment.start + segment.count, size);
+        if (segment.start >= to) {
+            return;
+        }
+        beginChange();
+        for (int i = segment.start; i < to; i++) {
+            nextSet(i, null);
+        }
+        endChange();
+    }
+
+    private void touch(Segment<T> segment) {
+        if (loadedSegments.peekFirst() == segment) {
+            return;
+        }
+        loadedSegments.remove(segment);
+        loadedSegments.addFirst(segment);
+        while (loadedSegments.size() > maxLoadedPages) {
+            loadedSegments.removeLast().rows = null;
+        }
+    }
+
+    private static class Segment<T> {
+
+        private int start;
+        private T last;
+        private int count;
+        private List<T> rows;
+        private boolean loading;
+        private boolean stale;
+        private int failures;
+        private long retryAt;
+
+        Segment(int start, int count) {
+            this.start = start;
+            this.count = count;
+        }
+
+        Segment(int start, List<T> rows) {
+            this(start, rows.size());
+            setRows(rows);
+        }
+
+        void setRows(List<T> rows) {
+            this.rows = new ArrayList<>(rows);
+            if (!rows.isEmpty()) {
+                last = rows.get(rows.size() - 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package gui.util;
+
+public interface Resettable {
+
+    void reset();
+
+}
@@ -3,24 +3,46 @@ package gui.util;
 import javafx.event.ActionEvent;
 import javafx.scene.Node;
 import javafx.scene.control.DatePicker;
-import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
+import javafx.scene.layout.Region;
 import javafx.stage.Stage;
 import javafx.util.StringConverter;
+import model.services.Validators;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.text.SimpleDateFormat;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.Locale;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Utils {
 
+    private static final Map<String, DateTimeFormatter> DATE_FORMATTERS = new ConcurrentHashMap<>();
+
     public static Stage currentStage(ActionEvent event) {
         return (Stage) ((Node) event.getSource()).getScene().getWindow();
     }
 
+    public static void bindSizeToWindow(Region region) {
+        region.sceneProperty().addListener((observable, oldScene, scene) -> {
+            if (scene != null && scene.getWindow() != null) {
+                region.prefHeightProperty().bind(scene.getWindow().heightProperty());
+                region.prefWidthProperty().bind(scene.getWindow().widthProperty());
+            }
+        });
+    }
+
+    public static Throwable rootCause(Throwable throwable) {
+        while (throwable instanceof CompletionException && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        return throwable;
+    }
+
     public static Integer tryParseToInt(String str) {
         try {
             return Integer.parseInt(str);
@@ -37,38 +59,31 @@ public class Utils {
         }
     }
 
+    public static DateTimeFormatter dateFormatter(String pattern) {
+        return DATE_FORMATTERS.computeIfAbsent(pattern, DateTimeFormatter::ofPattern);
+    }
+
+    public static String formatDecimal(double value, int decimalPlaces) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return Double.toString(value);
+        }
+        return new BigDecimal(Double.toString(value)).setScale(decimalPlaces, RoundingMode.HALF_UP).toPlainString();
+    }
+
     public static <T> void formatTableColumnDate(TableColumn<T, LocalDate> tableColumn, String format) {
-        tableColumn.setCellFactory(column -> new TableCell<>() {
-            @Override
-            protected void updateItem(LocalDate item, boolean empty) {
-                super.updateItem(item, empty);
-                if (empty) {
-                    setText(null);
-                } else {
-                    setText(item.format(DateTimeFormatter.ofPattern(format)));
-                }
-            }
-        });
+        DateTimeFormatter dateFormatter = dateFormatter(format);
+        CellTextCache<LocalDate> texts = new CellTextCache<>(dateFormatter::format);
+        tableColumn.setCellFactory(column -> new FormattedTableCell<>(texts));
     }
 
     public static <T> void formatTableColumnDouble(TableColumn<T, Double> tableColumn, int decimalPlaces) {
-        tableColumn.setCellFactory(column -> new TableCell<>() {
-            @Override
-            protected void updateItem(Double item, boolean empty) {
-                super.updateItem(item, empty);
-                if (empty) {
-                    setText(null);
-                } else {
-                    Locale.setDefault(Locale.US);
-                    setText(String.format("%." + decimalPlaces + "f", item));
-                }
-            }
-        });
+        CellTextCache<Double> texts = new CellTextCache<>(item -> formatDecimal(item, decimalPlaces));
+        tableColumn.setCellFactory(column -> new FormattedTableCell<>(texts));
     }
 
     public static void formatDatePicker(DatePicker datePicker, String format) {
         datePicker.setConverter(new StringConverter<>() {
-            DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern(format);
+            DateTimeFormatter dateFormatter = dateFormatter(format);
             {
                 datePicker.setPromptText(format.toLowerCase());
             }
@@ -92,8 +107,6 @@ public class Utils {
     }
 
     public static boolean isEmailValid(String email) {
-        String regex = "^[a-zA-Z0-9_!#$%&'*+/=?`{|}~^-]+(?:\\.[a-zA-Z0-9_!#$%&'*+/=?`{|}~^-]+)*@[a-zA-Z0-9-]+(?:\\.[a-zA-Z0-9-]+)*$";
-        Pattern pattern = Pattern.compile(regex);
-        return (email != null) && (!email.trim().equals("")) && (pattern.matcher(email).matches());
+        return Validators.isEmailValid(email);
     }
 }
@@ -0,0 +1,151 @@
+package gui.util;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class ViewCache {
+
+    private static final Logger LOGGER = Logger.getLogger(ViewCache.class.getName());
+
+    private static final ViewCache INSTANCE = new ViewCache();
+
+    private final Map<String, Deque<View<?>>> idleViews = new ConcurrentHashMap<>();
+    private final Map<String, Timings> timings = new ConcurrentHashMap<>();
+
+    private ViewCache() {}
+
+    public static ViewCache getInstance() {
+        return INSTANCE;
+    }
+
+    public CompletableFuture<Void> preloadAsync(String... absoluteNames) {
+        CompletableFuture<Void> preloaded = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            long start = System.nanoTime();
+            Map<String, Long> loadMillis = new LinkedHashMap<>();
+            for (String absoluteName : absoluteNames) {
+                long loadStart = System.nanoTime();
+                try {
+                    idle(absoluteName).offer(load(absoluteName));
+                    loadMillis.put(absoluteName, (System.nanoTime() - loadStart) / 1_000_000);
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Could not preload " + absoluteName, e);
+                }
+            }
+            LOGGER.info("Preloaded " + loadMillis.size() + " views in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms " + loadMillis);
+            preloaded.complete(null);
+        }, "view-preload");
+        thread.setDaemon(true);
+        thread.start();
+        return preloaded;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> View<T> acquire(String absoluteName) throws IOException {
+        long start = System.nanoTime();
+        View<T> view = (View<T>) idle(absoluteName).poll();
+        boolean cached = view != null;
+        if (!cached) {
+            view = load(absoluteName);
+        }
+        timings.computeIfAbsent(absoluteName, name -> new Timings()).record(cached, System.nanoTime() - start);
+        return view;
+    }
+
+    public void release(View<?> view) {
+        if (view.getController() instanceof Resettable) {
+            ((Resettable) view.getController()).reset();
+        }
+        idle(view.getName()).offer(view);
+    }
+
+    public String timingReport() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, Timings> entry : timings.entrySet()) {
+            lines.add(entry.getKey() + ": " + entry.getValue());
+        }
+        return String.join(System.lineSeparator(), lines);
+    }
+
+    private Deque<View<?>> idle(String absoluteName) {
+        return idleViews.computeIfAbsent(absoluteName, name -> new ConcurrentLinkedDeque<>());
+    }
+
+    private <T> View<T> load(String absoluteName) throws IOException {
+        FXMLLoader loader = new FXMLLoader(ViewCache.class.getResource(absoluteName));
+        Parent root = loader.load();
+        return new View<>(absoluteName, root, loader.getController());
+    }
+
+    public static class View<T> {
+
+        private final String name;
+        private final Parent root;
+        private final T controller;
+        private Scene scene;
+
+        View(String name, Parent root, T controller) {
+            this.name = name;
+            this.root = root;
+            this.controller = controller;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Parent getRoot() {
+            return root;
+        }
+
+        public T getController() {
+            return controller;
+        }
+
+        public Scene getScene() {
+            if (scene == null) {
+                scene = new Scene(root);
+            }
+            return scene;
+        }
+    }
+
+    private static class Timings {
+
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong hitNanos = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong missNanos = new AtomicLong();
+
+        void record(boolean cached, long nanos) {
+            (cached ? hits : misses).incrementAndGet();
+            (cached ? hitNanos : missNanos).addAndGet(nanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d cached (avg %.2f ms), %d loaded on demand (avg %.2f ms)",
+                    hits.get(), average(hitNanos.get(), hits.get()),
+                    misses.get(), average(missNanos.get(), misses.get()));
+        }
+
+        private static double average(long nanos, long count) {
+            return count == 0 ? 0 : nanos / 1_000_000.0 / count;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package model.dao;
+
+import java.util.Collection;
+import java.util.Set;
+
+public interface AppliedWriteDao {
+
+    void record(Collection<String> keys);
+    Set<String> findRecorded(Collection<String> keys);
+    int delete(Collection<String> keys);
+
+}
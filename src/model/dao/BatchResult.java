@@ -0,0 +1,96 @@
+package model.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class BatchResult<T> {
+
+    private int succeeded;
+    private final List<Failure<T>> failures = new ArrayList<>();
+    private final List<T> conflicts = new ArrayList<>();
+
+    public void addSucceeded(int rows) {
+        succeeded += rows;
+    }
+
+    public void addFailure(Failure<T> failure) {
+        failures.add(failure);
+    }
+
+    public void addConflict(T entity) {
+        conflicts.add(entity);
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public int getFailed() {
+        int failed = 0;
+        for (Failure<T> failure : failures) {
+            failed += failure.getEntities().size();
+        }
+        return failed;
+    }
+
+    public List<Failure<T>> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    public List<T> getConflicts() {
+        return Collections.unmodifiableList(conflicts);
+    }
+
+    public boolean hasConflicts() {
+        return !conflicts.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "succeeded=" + succeeded +
+                ", failed=" + getFailed() +
+                ", failedChunks=" + failures.size() +
+                ", conflicts=" + conflicts.size() +
+                '}';
+    }
+
+    public static class Failure<T> {
+
+        private final int chunkIndex;
+        private final List<T> entities;
+        private final String message;
+
+        public Failure(int chunkIndex, List<T> entities, String message) {
+            this.chunkIndex = chunkIndex;
+            this.entities = entities;
+            this.message = message;
+        }
+
+        public int getChunkIndex() {
+            return chunkIndex;
+        }
+
+        public List<T> getEntities() {
+            return entities;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "Failure{" +
+                    "chunkIndex=" + chunkIndex +
+                    ", rows=" + entities.size() +
+                    ", message='" + message + '\'' +
+                    '}';
+        }
+    }
+}
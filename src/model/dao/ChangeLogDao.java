@@ -0,0 +1,15 @@
+package model.dao;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface ChangeLogDao {
+
+    void record(String entity, ChangeType type, Collection<Integer> ids);
+    List<ChangeRecord> findAfter(long sequence, int limit);
+    long firstSequence();
+    long lastSequence();
+    int deleteBefore(Instant changedAt);
+
+}
@@ -0,0 +1,52 @@
+package model.dao;
+
+public class ChangeRecord {
+
+    public static final String SELLER = "seller";
+    public static final String DEPARTMENT = "department";
+
+    private final long sequence;
+    private final String entity;
+    private final int entityId;
+    private final ChangeType type;
+    private final boolean local;
+
+    public ChangeRecord(long sequence, String entity, int entityId, ChangeType type, boolean local) {
+        this.sequence = sequence;
+        this.entity = entity;
+        this.entityId = entityId;
+        this.type = type;
+        this.local = local;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public int getEntityId() {
+        return entityId;
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public boolean isLocal() {
+        return local;
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeRecord{" +
+                "sequence=" + sequence +
+                ", entity='" + entity + '\'' +
+                ", entityId=" + entityId +
+                ", type=" + type +
+                ", local=" + local +
+                '}';
+    }
+}
@@ -0,0 +1,27 @@
+package model.dao;
+
+public enum ChangeType {
+
+    INSERTED('I'),
+    UPDATED('U'),
+    DELETED('D');
+
+    private final char code;
+
+    ChangeType(char code) {
+        this.code = code;
+    }
+
+    public char getCode() {
+        return code;
+    }
+
+    public static ChangeType fromCode(char code) {
+        for (ChangeType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown change type: " + code);
+    }
+}
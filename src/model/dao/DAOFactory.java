@@ -1,16 +1,63 @@
 package model.dao;
 
 import db.Db;
+import model.dao.impl.AppliedWriteDaoJdbc;
+import model.dao.impl.CachingSellerDao;
+import model.dao.impl.ChangeLogDaoJdbc;
 import model.dao.impl.DepartmentDaoJdbc;
+import model.dao.impl.DepartmentPayrollDaoJdbc;
 import model.dao.impl.SellerDaoJdbc;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 public class DAOFactory {
 
+    private static final Logger LOGGER = Logger.getLogger(DAOFactory.class.getName());
+
+    private static CachingSellerDao cachingSellerDao = null;
+
     public static SellerDao createSellerDAO() {
-        return new SellerDaoJdbc(Db.getConnection());
+        Properties props = Db.getProperties();
+        if (Boolean.parseBoolean(props.getProperty("cache.seller.enabled", "false"))) {
+            return getCachingSellerDao(props);
+        }
+        return new SellerDaoJdbc();
     }
 
     public static DepartmentDao createDepartmentDAO() {
-        return new DepartmentDaoJdbc(Db.getConnection());
+        return new DepartmentDaoJdbc();
+    }
+
+    public static ChangeLogDao createChangeLogDAO() {
+        return new ChangeLogDaoJdbc();
+    }
+
+    public static DepartmentPayrollDao createDepartmentPayrollDAO() {
+        return new DepartmentPayrollDaoJdbc();
+    }
+
+    public static AppliedWriteDao createAppliedWriteDAO() {
+        return new AppliedWriteDaoJdbc();
+    }
+
+    private static synchronized CachingSellerDao getCachingSellerDao(Properties props) {
+        if (cachingSellerDao == null) {
+            cachingSellerDao = new CachingSellerDao(new SellerDaoJdbc(),
+                    Integer.parseInt(props.getProperty("cache.seller.maxEntries", "10000")),
+                    Long.parseLong(props.getProperty("cache.seller.maxWeightBytes", "0")),
+                    Long.parseLong(props.getProperty("cache.seller.ttlSeconds", "300")) * 1000);
+            try {
+                ManagementFactory.getPlatformMBeanServer()
+                        .registerMBean(cachingSellerDao, new ObjectName("model.dao:type=SellerCache"));
+            } catch (JMException e) {
+                LOGGER.log(Level.WARNING, "Could not register seller cache MBean", e);
+            }
+        }
+        return cachingSellerDao;
     }
 }
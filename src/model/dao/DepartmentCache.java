@@ -0,0 +1,87 @@
+package model.dao;
+
+import model.entities.Department;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+public class DepartmentCache {
+
+    private static final DepartmentCache INSTANCE = new DepartmentCache();
+
+    private final Map<Integer, Department> departmentsById = new ConcurrentHashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile List<Department> departments = null;
+
+    private DepartmentCache() {}
+
+    public static DepartmentCache getInstance() {
+        return INSTANCE;
+    }
+
+    public List<Department> findAll(Supplier<List<Department>> loader) {
+        List<Department> snapshot = departments;
+        if (snapshot == null) {
+            long loadedGeneration = generation.get();
+            List<Department> loaded = new ArrayList<>();
+            for (Department department : loader.get()) {
+                Department cached = departmentsById.get(department.getId());
+                loaded.add(isSame(cached, department) ? cached : department);
+            }
+            snapshot = Collections.unmodifiableList(loaded);
+            synchronized (this) {
+                // an invalidation during the load means the list may predate the change that caused it
+                if (loadedGeneration == generation.get()) {
+                    for (Department department : snapshot) {
+                        departmentsById.put(department.getId(), department);
+                    }
+                    departments = snapshot;
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    public List<Department> getAllIfPresent() {
+        return departments;
+    }
+
+    public Department resolve(int id, String name) {
+        Department cached = departmentsById.get(id);
+        if (cached != null) {
+            // never replace a versioned instance with one that would skip the optimistic lock check
+            return Objects.equals(cached.getName(), name) ? cached : new Department(id, name);
+        }
+        Department department = new Department(id, name);
+        Department raced = departmentsById.putIfAbsent(id, department);
+        return raced != null && Objects.equals(raced.getName(), name) ? raced : department;
+    }
+
+    public Department resolve(Department department) {
+        Department cached = departmentsById.get(department.getId());
+        if (isSame(cached, department)) {
+            return cached;
+        }
+        departmentsById.put(department.getId(), department);
+        return department;
+    }
+
+    public synchronized void invalidate() {
+        generation.incrementAndGet();
+        departments = null;
+        departmentsById.clear();
+    }
+
+    private static boolean isSame(Department cached, Department department) {
+        return cached != null && Objects.equals(cached.getName(), department.getName())
+                && Objects.equals(cached.getVersion(), department.getVersion());
+    }
+}
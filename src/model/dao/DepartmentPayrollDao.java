@@ -0,0 +1,13 @@
+package model.dao;
+
+import model.entities.DepartmentPayroll;
+
+import java.util.List;
+
+public interface DepartmentPayrollDao {
+
+    List<DepartmentPayroll> aggregateFromSellers();
+    List<DepartmentPayroll> findSummary();
+    void rebuildSummary();
+
+}
@@ -0,0 +1,13 @@
+package model.dao;
+
+public interface SellerCacheMXBean {
+
+    long getHits();
+    long getMisses();
+    long getEvictions();
+    double getHitRatio();
+    int getSize();
+    long getWeightBytes();
+    void clear();
+
+}
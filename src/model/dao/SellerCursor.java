@@ -0,0 +1,34 @@
+package model.dao;
+
+import model.entities.Seller;
+
+public class SellerCursor {
+
+    private final String name;
+    private final int id;
+
+    public SellerCursor(String name, int id) {
+        this.name = name;
+        this.id = id;
+    }
+
+    public static SellerCursor of(Seller seller) {
+        return new SellerCursor(seller.getName(), seller.getId());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "SellerCursor{" +
+                "name='" + name + '\'' +
+                ", id=" + id +
+                '}';
+    }
+}
@@ -2,15 +2,31 @@ package model.dao;
 
 import model.entities.Seller;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface SellerDao {
 
     void insert(Seller seller);
     void update(Seller seller);
+    BatchResult<Seller> insertAll(Collection<Seller> sellers);
+    BatchResult<Seller> updateAll(Collection<Seller> sellers);
     void deleteById(int id);
     Seller findById(int id);
+    List<Seller> findByIds(Collection<Integer> ids);
     List<Seller> findAll();
     List<Seller> findByDepartment(Integer departmentId);
+    Stream<Seller> streamAll();
+    void streamAll(Consumer<Seller> consumer);
+    Stream<Seller> streamByDepartment(Integer departmentId);
+    void streamByDepartment(Integer departmentId, Consumer<Seller> consumer);
+    List<Seller> findPage(SellerCursor after, int pageSize);
+    List<Seller> findPage(SellerQuery query, SellerCursor after, int pageSize);
+    List<Seller> findPageAt(SellerQuery query, int offset, int pageSize);
+    int count();
+    int count(SellerQuery query);
+    int countBefore(SellerQuery query, SellerCursor cursor);
 
 }
@@ -0,0 +1,120 @@
+package model.dao;
+
+import model.entities.Seller;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class SellerQuery {
+
+    private String namePrefix;
+    private String email;
+    private Set<Integer> departmentIds = Collections.emptySet();
+    private Double minBaseSalary;
+    private Double maxBaseSalary;
+    private LocalDate birthDateFrom;
+    private LocalDate birthDateTo;
+
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    public void setNamePrefix(String namePrefix) {
+        this.namePrefix = namePrefix == null || namePrefix.isBlank() ? null : namePrefix;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email == null || email.isBlank() ? null : email;
+    }
+
+    public Set<Integer> getDepartmentIds() {
+        return departmentIds;
+    }
+
+    public void setDepartmentIds(Set<Integer> departmentIds) {
+        this.departmentIds = departmentIds == null
+                ? Collections.emptySet()
+                : Collections.unmodifiableSet(new TreeSet<>(departmentIds));
+    }
+
+    public Double getMinBaseSalary() {
+        return minBaseSalary;
+    }
+
+    public void setMinBaseSalary(Double minBaseSalary) {
+        this.minBaseSalary = minBaseSalary;
+    }
+
+    public Double getMaxBaseSalary() {
+        return maxBaseSalary;
+    }
+
+    public void setMaxBaseSalary(Double maxBaseSalary) {
+        this.maxBaseSalary = maxBaseSalary;
+    }
+
+    public LocalDate getBirthDateFrom() {
+        return birthDateFrom;
+    }
+
+    public void setBirthDateFrom(LocalDate birthDateFrom) {
+        this.birthDateFrom = birthDateFrom;
+    }
+
+    public LocalDate getBirthDateTo() {
+        return birthDateTo;
+    }
+
+    public void setBirthDateTo(LocalDate birthDateTo) {
+        this.birthDateTo = birthDateTo;
+    }
+
+    public boolean isEmpty() {
+        return namePrefix == null && email == null && departmentIds.isEmpty()
+                && minBaseSalary == null && maxBaseSalary == null
+                && birthDateFrom == null && birthDateTo == null;
+    }
+
+    public boolean matches(Seller seller) {
+        if (namePrefix != null && (seller.getName() == null
+                || !seller.getName().regionMatches(true, 0, namePrefix, 0, namePrefix.length()))) {
+            return false;
+        }
+        if (email != null && !email.equalsIgnoreCase(seller.getEmail())) {
+            return false;
+        }
+        if (!departmentIds.isEmpty() && (seller.getDepartment() == null
+                || !departmentIds.contains(seller.getDepartment().getId()))) {
+            return false;
+        }
+        if (minBaseSalary != null && (seller.getBaseSalary() == null || seller.getBaseSalary() < minBaseSalary)) {
+            return false;
+        }
+        if (maxBaseSalary != null && (seller.getBaseSalary() == null || seller.getBaseSalary() > maxBaseSalary)) {
+            return false;
+        }
+        if (birthDateFrom != null && (seller.getBirthDate() == null || seller.getBirthDate().isBefore(birthDateFrom))) {
+            return false;
+        }
+        return birthDateTo == null || (seller.getBirthDate() != null && !seller.getBirthDate().isAfter(birthDateTo));
+    }
+
+    @Override
+    public String toString() {
+        return "SellerQuery{" +
+                "namePrefix='" + namePrefix + '\'' +
+                ", email='" + email + '\'' +
+                ", departmentIds=" + departmentIds +
+                ", minBaseSalary=" + minBaseSalary +
+                ", maxBaseSalary=" + maxBaseSalary +
+                ", birthDateFrom=" + birthDateFrom +
+                ", birthDateTo=" + birthDateTo +
+                '}';
+    }
+}
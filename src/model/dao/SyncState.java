@@ -0,0 +1,43 @@
+package model.dao;
+
+import java.util.Objects;
+
+public class SyncState {
+
+    private final int count;
+    private final long changeSequence;
+
+    public SyncState(int count, long changeSequence) {
+        this.count = count;
+        this.changeSequence = changeSequence;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getChangeSequence() {
+        return changeSequence;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SyncState syncState = (SyncState) o;
+        return count == syncState.count && changeSequence == syncState.changeSequence;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(count, changeSequence);
+    }
+
+    @Override
+    public String toString() {
+        return "SyncState{" +
+                "count=" + count +
+                ", changeSequence=" + changeSequence +
+                '}';
+    }
+}
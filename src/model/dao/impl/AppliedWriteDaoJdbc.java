@@ -0,0 +1,91 @@
+package model.dao.impl;
+
+import db.DBException;
+import db.Db;
+import model.dao.AppliedWriteDao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class AppliedWriteDaoJdbc implements AppliedWriteDao {
+
+    private static final String INSERT_SQL = "INSERT INTO write_behind_applied (WriteKey) VALUES (?)";
+
+    private static final String FIND_SQL = "SELECT WriteKey FROM write_behind_applied WHERE WriteKey IN (%s)";
+
+    private static final int FIND_CHUNK_SIZE = 500;
+
+    private static final String DELETE_SQL = "DELETE FROM write_behind_applied WHERE WriteKey = ?";
+
+    @Override
+    public void record(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Db.inTransaction(conn -> {
+            try (PreparedStatement preparedStatement = conn.prepareStatement(INSERT_SQL)) {
+                for (String key : keys) {
+                    preparedStatement.setString(1,key);
+                    preparedStatement.addBatch();
+                }
+                preparedStatement.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Set<String> findRecorded(Collection<String> keys) {
+        Set<String> recorded = new HashSet<>();
+        if (keys.isEmpty()) {
+            return recorded;
+        }
+        List<String> remaining = new ArrayList<>(keys);
+        try (Connection conn = Db.getConnection()) {
+            for (int from = 0; from < remaining.size(); from += FIND_CHUNK_SIZE) {
+                List<String> chunk = remaining.subList(from, Math.min(from + FIND_CHUNK_SIZE, remaining.size()));
+                String placeholders = "?,".repeat(chunk.size() - 1) + "?";
+                try (PreparedStatement preparedStatement = conn.prepareStatement(String.format(FIND_SQL, placeholders))) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        preparedStatement.setString(i + 1,chunk.get(i));
+                    }
+                    try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                        while (resultSet.next()) {
+                            recorded.add(resultSet.getString(1));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        }
+        return recorded;
+    }
+
+    @Override
+    public int delete(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        return Db.inTransaction(conn -> {
+            try (PreparedStatement preparedStatement = conn.prepareStatement(DELETE_SQL)) {
+                for (String key : keys) {
+                    preparedStatement.setString(1,key);
+                    preparedStatement.addBatch();
+                }
+                int deleted = 0;
+                for (int count : preparedStatement.executeBatch()) {
+                    deleted += Math.max(count, 0);
+                }
+                return deleted;
+            }
+        });
+    }
+}
@@ -0,0 +1,269 @@
+package model.dao.impl;
+
+import db.Db;
+import model.dao.BatchResult;
+import model.dao.SellerCacheMXBean;
+import model.dao.SellerCursor;
+import model.dao.SellerDao;
+import model.dao.SellerQuery;
+import model.entities.Seller;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class CachingSellerDao implements SellerDao, SellerCacheMXBean {
+
+    private static final long ENTRY_OVERHEAD_BYTES = 160;
+
+    private final SellerDao delegate;
+    private final int maxEntries;
+    private final long maxWeightBytes;
+    private final long ttlNanos;
+
+    private final Map<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private long weightBytes;
+
+    public CachingSellerDao(SellerDao delegate, int maxEntries, long maxWeightBytes, long ttlMillis) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.maxWeightBytes = maxWeightBytes;
+        this.ttlNanos = ttlMillis * 1_000_000;
+    }
+
+    @Override
+    public Seller findById(int id) {
+        synchronized (this) {
+            Entry entry = entries.get(id);
+            if (entry != null) {
+                if (System.nanoTime() - entry.loadedAt < ttlNanos) {
+                    hits.incrementAndGet();
+                    return copyOf(entry.seller);
+                }
+                remove(id);
+                evictions.incrementAndGet();
+            }
+        }
+        misses.incrementAndGet();
+        long generation = invalidations.get();
+        Seller seller = delegate.findById(id);
+        if (seller != null) {
+            synchronized (this) {
+                if (generation == invalidations.get()) {
+                    put(copyOf(seller));
+                }
+            }
+        }
+        return seller;
+    }
+
+    @Override
+    public List<Seller> findByIds(Collection<Integer> ids) {
+        return delegate.findByIds(ids);
+    }
+
+    @Override
+    public void insert(Seller seller) {
+        delegate.insert(seller);
+    }
+
+    @Override
+    public void update(Seller seller) {
+        invalidate(seller.getId());
+        delegate.update(seller);
+    }
+
+    @Override
+    public BatchResult<Seller> insertAll(Collection<Seller> sellers) {
+        return delegate.insertAll(sellers);
+    }
+
+    @Override
+    public BatchResult<Seller> updateAll(Collection<Seller> sellers) {
+        for (Seller seller : sellers) {
+            invalidate(seller.getId());
+        }
+        return delegate.updateAll(sellers);
+    }
+
+    @Override
+    public void deleteById(int id) {
+        invalidate(id);
+        delegate.deleteById(id);
+    }
+
+    @Override
+    public List<Seller> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Seller> findByDepartment(Integer departmentId) {
+        return delegate.findByDepartment(departmentId);
+    }
+
+    @Override
+    public Stream<Seller> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public void streamAll(Consumer<Seller> consumer) {
+        delegate.streamAll(consumer);
+    }
+
+    @Override
+    public Stream<Seller> streamByDepartment(Integer departmentId) {
+        return delegate.streamByDepartment(departmentId);
+    }
+
+    @Override
+    public void streamByDepartment(Integer departmentId, Consumer<Seller> consumer) {
+        delegate.streamByDepartment(departmentId, consumer);
+    }
+
+    @Override
+    public List<Seller> findPage(SellerCursor after, int pageSize) {
+        return delegate.findPage(after, pageSize);
+    }
+
+    @Override
+    public List<Seller> findPage(SellerQuery query, SellerCursor after, int pageSize) {
+        return delegate.findPage(query, after, pageSize);
+    }
+
+    @Override
+    public List<Seller> findPageAt(SellerQuery query, int offset, int pageSize) {
+        return delegate.findPageAt(query, offset, pageSize);
+    }
+
+    @Override
+    public int count() {
+        return delegate.count();
+    }
+
+    @Override
+    public int countBefore(SellerQuery query, SellerCursor cursor) {
+        return delegate.countBefore(query, cursor);
+    }
+
+    @Override
+    public int count(SellerQuery query) {
+        return delegate.count(query);
+    }
+
+    @Override
+    public long getHits() {
+        return hits.get();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    @Override
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized long getWeightBytes() {
+        return weightBytes;
+    }
+
+    @Override
+    public synchronized void clear() {
+        invalidations.incrementAndGet();
+        entries.clear();
+        weightBytes = 0;
+    }
+
+    // for writes made elsewhere, which never pass through insert, update or delete here
+    public synchronized void evictAll(Collection<Integer> ids) {
+        invalidations.incrementAndGet();
+        for (Integer id : ids) {
+            remove(id);
+        }
+    }
+
+    private void invalidate(Integer id) {
+        if (id == null) {
+            return;
+        }
+        evict(id);
+        Db.afterCommit(() -> evict(id));
+    }
+
+    private synchronized void evict(int id) {
+        invalidations.incrementAndGet();
+        remove(id);
+    }
+
+    private void put(Seller seller) {
+        remove(seller.getId());
+        Entry entry = new Entry(seller);
+        entries.put(seller.getId(), entry);
+        weightBytes += entry.weight;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext() && (entries.size() > maxEntries
+                || (maxWeightBytes > 0 && weightBytes > maxWeightBytes))) {
+            Entry eldest = iterator.next();
+            iterator.remove();
+            weightBytes -= eldest.weight;
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(int id) {
+        Entry removed = entries.remove(id);
+        if (removed != null) {
+            weightBytes -= removed.weight;
+        }
+    }
+
+    private static Seller copyOf(Seller seller) {
+        Seller copy = new Seller(seller.getId(), seller.getName(), seller.getEmail(), seller.getBirthDate(),
+                seller.getBaseSalary(), seller.getDepartment());
+        copy.setVersion(seller.getVersion());
+        return copy;
+    }
+
+    private static long weightOf(Seller seller) {
+        long chars = (seller.getName() == null ? 0 : seller.getName().length())
+                + (seller.getEmail() == null ? 0 : seller.getEmail().length());
+        return ENTRY_OVERHEAD_BYTES + 2 * chars;
+    }
+
+    private static class Entry {
+
+        private final Seller seller;
+        private final long loadedAt = System.nanoTime();
+        private final long weight;
+
+        Entry(Seller seller) {
+            this.seller = seller;
+            this.weight = weightOf(seller);
+        }
+    }
+}
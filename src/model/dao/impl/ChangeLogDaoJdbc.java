@@ -0,0 +1,104 @@
+package model.dao.impl;
+
+import db.DBException;
+import db.Db;
+import model.dao.ChangeLogDao;
+import model.dao.ChangeRecord;
+import model.dao.ChangeType;
+
+import java.sql.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public class ChangeLogDaoJdbc implements ChangeLogDao {
+
+    private static final String ORIGIN = UUID.randomUUID().toString();
+
+    private static final String INSERT_SQL =
+            "INSERT INTO change_log (Entity, EntityId, ChangeType, Origin) VALUES (?, ?, ?, ?)";
+
+    private static final String FIND_AFTER_SQL =
+            "SELECT Seq, Entity, EntityId, ChangeType, Origin FROM change_log WHERE Seq > ? ORDER BY Seq LIMIT ?";
+
+    private static final String FIRST_SEQUENCE_SQL = "SELECT MIN(Seq) FROM change_log";
+
+    private static final String LAST_SEQUENCE_SQL = "SELECT MAX(Seq) FROM change_log";
+
+    private static final String DELETE_BEFORE_SQL = "DELETE FROM change_log WHERE ChangedAt < ?";
+
+    private final boolean enabled = Boolean.parseBoolean(Db.getProperties().getProperty("changeFeed.enabled", "false"));
+
+    @Override
+    public void record(String entity, ChangeType type, Collection<Integer> ids) {
+        if (!enabled || ids.isEmpty()) {
+            return;
+        }
+        Db.inTransaction(conn -> {
+            try (PreparedStatement preparedStatement = conn.prepareStatement(INSERT_SQL)) {
+                for (Integer id : ids) {
+                    preparedStatement.setString(1,entity);
+                    preparedStatement.setInt(2,id);
+                    preparedStatement.setString(3,String.valueOf(type.getCode()));
+                    preparedStatement.setString(4,ORIGIN);
+                    preparedStatement.addBatch();
+                }
+                preparedStatement.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public List<ChangeRecord> findAfter(long sequence, int limit) {
+        List<ChangeRecord> records = new ArrayList<>();
+        try (Connection conn = Db.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(FIND_AFTER_SQL)) {
+            preparedStatement.setLong(1,sequence);
+            preparedStatement.setInt(2,limit);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    records.add(new ChangeRecord(resultSet.getLong(1), resultSet.getString(2), resultSet.getInt(3),
+                            ChangeType.fromCode(resultSet.getString(4).charAt(0)),
+                            ORIGIN.equals(resultSet.getString(5))));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        }
+        return records;
+    }
+
+    @Override
+    public long firstSequence() {
+        return querySequence(FIRST_SEQUENCE_SQL);
+    }
+
+    @Override
+    public long lastSequence() {
+        return querySequence(LAST_SEQUENCE_SQL);
+    }
+
+    @Override
+    public int deleteBefore(Instant changedAt) {
+        try (Connection conn = Db.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(DELETE_BEFORE_SQL)) {
+            preparedStatement.setTimestamp(1,Timestamp.from(changedAt));
+            return preparedStatement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        }
+    }
+
+    private long querySequence(String sql) {
+        try (Connection conn = Db.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(sql);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package model.dao.impl;
 
+import db.DBConcurrencyException;
 import db.DBException;
 import db.DBIntegrityException;
 import db.Db;
+import model.dao.ChangeLogDao;
+import model.dao.ChangeRecord;
+import model.dao.ChangeType;
+import model.dao.DAOFactory;
+import model.dao.DepartmentCache;
 import model.dao.DepartmentDao;
 import model.entities.Department;
 
@@ -12,78 +18,103 @@ import java.util.List;
 
 public class DepartmentDaoJdbc implements DepartmentDao {
 
-    private Connection conn;
+    private static final String INSERT_SQL = "INSERT INTO department (Name) VALUES (?)";
 
-    public DepartmentDaoJdbc(Connection conn) {
-        this.conn = conn;
-    }
+    private static final String UPDATE_SQL =
+            "UPDATE department SET Name = ?, Version = Version + 1 WHERE Id = ? AND (? IS NULL OR Version = ?)";
+
+    private static final String DELETE_SQL = "DELETE FROM department WHERE Id = ?";
+
+    private static final String FIND_BY_ID_SQL = "SELECT Id,Name,Version FROM department WHERE Id = ?";
+
+    private static final String FIND_ALL_SQL = "SELECT Id,Name,Version FROM department ORDER BY Name";
+
+    private final ChangeLogDao changeLog = DAOFactory.createChangeLogDAO();
+    private final DepartmentPayrollDaoJdbc payroll = new DepartmentPayrollDaoJdbc();
 
     @Override
     public void insert(Department department) {
-        String sql = "INSERT INTO department (Name) VALUES (?)";
-        try (PreparedStatement preparedStatement = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)){
-            preparedStatement.setString(1,department.getName());
-            Db.beginTransaction();
-            int linesAffected = preparedStatement.executeUpdate();
-            Db.commitTransaction();
-            if (linesAffected > 0) {
-                ResultSet resultSet = preparedStatement.getGeneratedKeys();
-                if (resultSet.next()) {
-                    department.setId(resultSet.getInt(1));
+        Db.inTransaction(conn -> {
+            try (PreparedStatement preparedStatement = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)){
+                preparedStatement.setString(1,department.getName());
+                int linesAffected = preparedStatement.executeUpdate();
+                if (linesAffected == 0) {
+                    throw new SQLException("No row affected!");
+                }
+                try (ResultSet resultSet = preparedStatement.getGeneratedKeys()) {
+                    if (resultSet.next()) {
+                        department.setId(resultSet.getInt(1));
+                        department.setVersion(0);
+                    }
                 }
-            } else {
-                throw new SQLException("No row affected!");
             }
-        } catch (SQLException e) {
-            Db.rollbackTransaction();
-            throw new DBException(e.getMessage());
-        }
+            payroll.createSummary(conn, department.getId());
+            changeLog.record(ChangeRecord.DEPARTMENT, ChangeType.INSERTED, List.of(department.getId()));
+            Db.afterCommit(DepartmentCache.getInstance()::invalidate);
+            return null;
+        });
     }
 
     @Override
     public void update(Department department) {
-        String sql = "UPDATE department SET Name = ? WHERE Id = ?";
-        try (PreparedStatement preparedStatement = conn.prepareStatement(sql)) {
-            preparedStatement.setString(1,department.getName());
-            preparedStatement.setInt(2,department.getId());
-            Db.beginTransaction();
-            int rowsAffected = preparedStatement.executeUpdate();
-            Db.commitTransaction();
-            if (rowsAffected <= 0) {
-                throw new SQLException("No row affected!");
+        Db.inTransaction(conn -> {
+            try (PreparedStatement preparedStatement = conn.prepareStatement(UPDATE_SQL)) {
+                preparedStatement.setString(1,department.getName());
+                preparedStatement.setInt(2,department.getId());
+                if (department.getVersion() == null) {
+                    preparedStatement.setNull(3,Types.INTEGER);
+                    preparedStatement.setNull(4,Types.INTEGER);
+                } else {
+                    preparedStatement.setInt(3,department.getVersion());
+                    preparedStatement.setInt(4,department.getVersion());
+                }
+                int rowsAffected = preparedStatement.executeUpdate();
+                if (rowsAffected <= 0) {
+                    if (department.getVersion() != null) {
+                        throw new DBConcurrencyException("Department " + department.getId()
+                                + " was changed or deleted by another user");
+                    }
+                    throw new SQLException("No row affected!");
+                }
             }
-        } catch (SQLException e) {
-            Db.rollbackTransaction();
-            throw new DBException(e.getMessage());
-        }
+            changeLog.record(ChangeRecord.DEPARTMENT, ChangeType.UPDATED, List.of(department.getId()));
+            Db.afterCommit(() -> {
+                if (department.getVersion() != null) {
+                    department.setVersion(department.getVersion() + 1);
+                }
+                DepartmentCache.getInstance().invalidate();
+            });
+            return null;
+        });
     }
 
     @Override
     public void deleteById(int id) {
-        String sql = "DELETE FROM department WHERE Id = ?";
-        try (PreparedStatement preparedStatement = conn.prepareStatement(sql)) {
-            preparedStatement.setInt(1, id);
-            Db.beginTransaction();
-            preparedStatement.executeUpdate();
-            Db.commitTransaction();
-        } catch (SQLIntegrityConstraintViolationException e) {
-            Db.rollbackTransaction();
-            throw new DBIntegrityException(e.getMessage());
-        } catch (SQLException e) {
-            Db.rollbackTransaction();
-            throw new DBException(e.getMessage());
-        }
+        Db.inTransaction(conn -> {
+            try (PreparedStatement preparedStatement = conn.prepareStatement(DELETE_SQL)) {
+                preparedStatement.setInt(1, id);
+                if (preparedStatement.executeUpdate() > 0) {
+                    payroll.deleteSummary(conn, id);
+                    changeLog.record(ChangeRecord.DEPARTMENT, ChangeType.DELETED, List.of(id));
+                }
+            } catch (SQLIntegrityConstraintViolationException e) {
+                throw new DBIntegrityException(e.getMessage());
+            }
+            Db.afterCommit(DepartmentCache.getInstance()::invalidate);
+            return null;
+        });
     }
 
     @Override
     public Department findById(int id) {
         Department department = null;
-        String sql = "SELECT Id,Name FROM department WHERE Id = ?";
-        try (PreparedStatement preparedStatement = conn.prepareStatement(sql)) {
+        try (Connection conn = Db.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(FIND_BY_ID_SQL)) {
             preparedStatement.setInt(1,id);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            if (resultSet.next()) {
-                department = new Department(resultSet.getInt("Id"),resultSet.getString("Name"));
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    department = instantiateDepartment(resultSet);
+                }
             }
         } catch (SQLException e) {
             throw new DBException(e.getMessage());
@@ -94,15 +125,21 @@ public class DepartmentDaoJdbc implements DepartmentDao {
     @Override
     public List<Department> findAll() {
         List<Department> departments = new ArrayList<>();
-        String sql = "SELECT Id,Name FROM department ORDER BY Name";
-        try (PreparedStatement preparedStatement = conn.prepareStatement(sql)) {
-            ResultSet resultSet = preparedStatement.executeQuery();
+        try (Connection conn = Db.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(FIND_ALL_SQL);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
             while (resultSet.next()) {
-                departments.add(new Department(resultSet.getInt("Id"), resultSet.getString("Name")));
+                departments.add(instantiateDepartment(resultSet));
             }
         } catch (SQLException e) {
             throw new DBException(e.getMessage());
         }
         return departments;
     }
+
+    private Department instantiateDepartment(ResultSet resultSet) throws SQLException {
+        Department department = new Department(resultSet.getInt("Id"),resultSet.getString("Name"));
+        department.setVersion(resultSet.getInt("Version"));
+        return department;
+    }
 }
@@ -0,0 +1,222 @@
+package model.dao.impl;
+
+import db.DBException;
+import db.Db;
+import model.dao.DepartmentCache;
+import model.dao.DepartmentPayrollDao;
+import model.entities.DepartmentPayroll;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+public class DepartmentPayrollDaoJdbc implements DepartmentPayrollDao {
+
+    private static final String AGGREGATE_SQL = "SELECT department.Id, department.Name, "
+            + "COUNT(seller.Id) Headcount, COALESCE(SUM(seller.BaseSalary), 0) TotalSalary, "
+            + "MIN(seller.BaseSalary) MinSalary, MAX(seller.BaseSalary) MaxSalary "
+            + "FROM department LEFT JOIN seller ON seller.DepartmentId = department.Id "
+            + "GROUP BY department.Id, department.Name ORDER BY department.Name";
+
+    private static final String FIND_SUMMARY_SQL = "SELECT department.Id, department.Name, "
+            + "COALESCE(payroll.Headcount, 0) Headcount, COALESCE(payroll.TotalSalary, 0) TotalSalary, "
+            + "payroll.MinSalary MinSalary, payroll.MaxSalary MaxSalary "
+            + "FROM department LEFT JOIN department_payroll payroll ON payroll.DepartmentId = department.Id "
+            + "ORDER BY department.Name";
+
+    private static final String APPLY_DELTA_SQL = "UPDATE department_payroll SET "
+            + "Headcount = Headcount + ?, TotalSalary = TotalSalary + ?, "
+            + "MinSalary = (SELECT MIN(BaseSalary) FROM seller WHERE DepartmentId = ?), "
+            + "MaxSalary = (SELECT MAX(BaseSalary) FROM seller WHERE DepartmentId = ?) "
+            + "WHERE DepartmentId = ?";
+
+    private static final String APPLY_INSERTS_SQL = "UPDATE department_payroll SET "
+            + "Headcount = Headcount + ?, TotalSalary = TotalSalary + ?, "
+            + "MinSalary = CASE WHEN MinSalary IS NULL OR MinSalary > ? THEN ? ELSE MinSalary END, "
+            + "MaxSalary = CASE WHEN MaxSalary IS NULL OR MaxSalary < ? THEN ? ELSE MaxSalary END "
+            + "WHERE DepartmentId = ?";
+
+    private static final String RECOUNT_SQL = "INSERT IGNORE INTO department_payroll "
+            + "(DepartmentId, Headcount, TotalSalary, MinSalary, MaxSalary) "
+            + "SELECT ?, COUNT(*), COALESCE(SUM(BaseSalary), 0), MIN(BaseSalary), MAX(BaseSalary) "
+            + "FROM seller WHERE DepartmentId = ?";
+
+    private static final String CREATE_SUMMARY_SQL = "INSERT INTO department_payroll (DepartmentId) VALUES (?)";
+
+    private static final String DELETE_SUMMARY_SQL = "DELETE FROM department_payroll WHERE DepartmentId = ?";
+
+    private static final String LOCK_SELLERS_SQL = "SELECT Id, DepartmentId, BaseSalary FROM seller WHERE Id IN (%s) FOR UPDATE";
+
+    private static final String DELETE_ALL_SQL = "DELETE FROM department_payroll";
+
+    private static final String REBUILD_SQL = "INSERT INTO department_payroll "
+            + "(DepartmentId, Headcount, TotalSalary, MinSalary, MaxSalary) "
+            + "SELECT department.Id, COUNT(seller.Id), COALESCE(SUM(seller.BaseSalary), 0), "
+            + "MIN(seller.BaseSalary), MAX(seller.BaseSalary) "
+            + "FROM department LEFT JOIN seller ON seller.DepartmentId = department.Id "
+            + "GROUP BY department.Id";
+
+    private static final Map<Connection, PayrollDelta> COMMIT_DELTAS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final boolean enabled =
+            Boolean.parseBoolean(Db.getProperties().getProperty("payrollSummary.enabled", "false"));
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public List<DepartmentPayroll> aggregateFromSellers() {
+        return query(AGGREGATE_SQL);
+    }
+
+    @Override
+    public List<DepartmentPayroll> findSummary() {
+        return enabled ? query(FIND_SUMMARY_SQL) : aggregateFromSellers();
+    }
+
+    @Override
+    public void rebuildSummary() {
+        Db.inTransaction(conn -> {
+            try (PreparedStatement delete = conn.prepareStatement(DELETE_ALL_SQL);
+                 PreparedStatement rebuild = conn.prepareStatement(REBUILD_SQL)) {
+                delete.executeUpdate();
+                rebuild.executeUpdate();
+            }
+            return null;
+        });
+    }
+
+    void createSummary(Connection conn, int departmentId) throws SQLException {
+        if (!enabled) {
+            return;
+        }
+        try (PreparedStatement preparedStatement = conn.prepareStatement(CREATE_SUMMARY_SQL)) {
+            preparedStatement.setInt(1,departmentId);
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    void deleteSummary(Connection conn, int departmentId) throws SQLException {
+        if (!enabled) {
+            return;
+        }
+        try (PreparedStatement preparedStatement = conn.prepareStatement(DELETE_SUMMARY_SQL)) {
+            preparedStatement.setInt(1,departmentId);
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    PayrollDelta lockSellers(Connection conn, Collection<Integer> sellerIds) throws SQLException {
+        PayrollDelta delta = new PayrollDelta();
+        if (!enabled || sellerIds.isEmpty()) {
+            return delta;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(sellerIds.size(), "?"));
+        try (PreparedStatement preparedStatement = conn.prepareStatement(String.format(LOCK_SELLERS_SQL, placeholders))) {
+            int index = 1;
+            for (Integer sellerId : sellerIds) {
+                preparedStatement.setInt(index++,sellerId);
+            }
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    delta.recordBefore(resultSet.getInt("Id"), resultSet.getInt("DepartmentId"),
+                            resultSet.getDouble("BaseSalary"));
+                }
+            }
+        }
+        return delta;
+    }
+
+    void applyAtCommit(PayrollDelta delta) {
+        if (!enabled || delta.isEmpty()) {
+            return;
+        }
+        // summary rows are only locked from commit onwards, and a transaction with many writes updates each once
+        Db.beforeCommit(conn -> {
+            PayrollDelta merged = COMMIT_DELTAS.get(conn);
+            if (merged == null) {
+                merged = new PayrollDelta();
+                COMMIT_DELTAS.put(conn, merged);
+                Db.beforeCommit(transaction -> {
+                    apply(COMMIT_DELTAS.remove(transaction));
+                    return null;
+                });
+            }
+            merged.merge(delta);
+            return null;
+        });
+    }
+
+    private void apply(PayrollDelta delta) {
+        Db.inTransaction(conn -> {
+            try (PreparedStatement applyDelta = conn.prepareStatement(APPLY_DELTA_SQL);
+                 PreparedStatement applyInserts = conn.prepareStatement(APPLY_INSERTS_SQL)) {
+                for (int departmentId : delta.getDepartmentIds()) {
+                    PreparedStatement preparedStatement = delta.hasRemovals(departmentId) ? applyDelta : applyInserts;
+                    // no summary row yet: create it from the seller table, which already holds this delta,
+                    // and when a concurrent first write created it meanwhile, add the delta to that row instead
+                    if (applyDelta(preparedStatement, delta, departmentId) == 0 && recount(conn, departmentId) == 0) {
+                        applyDelta(preparedStatement, delta, departmentId);
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private int applyDelta(PreparedStatement preparedStatement, PayrollDelta delta, int departmentId)
+            throws SQLException {
+        preparedStatement.setInt(1,delta.getHeadcount(departmentId));
+        preparedStatement.setBigDecimal(2,BigDecimal.valueOf(delta.getTotalSalary(departmentId)));
+        if (delta.hasRemovals(departmentId)) {
+            preparedStatement.setInt(3,departmentId);
+            preparedStatement.setInt(4,departmentId);
+            preparedStatement.setInt(5,departmentId);
+        } else {
+            preparedStatement.setDouble(3,delta.getMinAdded(departmentId));
+            preparedStatement.setDouble(4,delta.getMinAdded(departmentId));
+            preparedStatement.setDouble(5,delta.getMaxAdded(departmentId));
+            preparedStatement.setDouble(6,delta.getMaxAdded(departmentId));
+            preparedStatement.setInt(7,departmentId);
+        }
+        return preparedStatement.executeUpdate();
+    }
+
+    private int recount(Connection conn, int departmentId) throws SQLException {
+        try (PreparedStatement preparedStatement = conn.prepareStatement(RECOUNT_SQL)) {
+            preparedStatement.setInt(1,departmentId);
+            preparedStatement.setInt(2,departmentId);
+            return preparedStatement.executeUpdate();
+        }
+    }
+
+    private List<DepartmentPayroll> query(String sql) {
+        List<DepartmentPayroll> payrolls = new ArrayList<>();
+        try (Connection conn = Db.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(sql);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                payrolls.add(new DepartmentPayroll(
+                        DepartmentCache.getInstance().resolve(resultSet.getInt("Id"), resultSet.getString("Name")),
+                        resultSet.getInt("Headcount"),
+                        resultSet.getDouble("TotalSalary"),
+                        getNullableDouble(resultSet, "MinSalary"),
+                        getNullableDouble(resultSet, "MaxSalary")));
+            }
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        }
+        return payrolls;
+    }
+
+    private static Double getNullableDouble(ResultSet resultSet, String column) throws SQLException {
+        double value = resultSet.getDouble(column);
+        return resultSet.wasNull() ? null : value;
+    }
+}
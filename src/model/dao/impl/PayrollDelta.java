@@ -0,0 +1,104 @@
+package model.dao.impl;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+class PayrollDelta {
+
+    private final Map<Integer, Integer> headcount = new HashMap<>();
+    private final Map<Integer, Double> totalSalary = new HashMap<>();
+    private final Map<Integer, Double> minAdded = new HashMap<>();
+    private final Map<Integer, Double> maxAdded = new HashMap<>();
+    private final Set<Integer> removedFrom = new HashSet<>();
+    private final Map<Integer, Integer> departmentBefore = new HashMap<>();
+    private final Map<Integer, Double> salaryBefore = new HashMap<>();
+
+    void recordBefore(int sellerId, int departmentId, double salary) {
+        departmentBefore.put(sellerId, departmentId);
+        salaryBefore.put(sellerId, salary);
+    }
+
+    void recordInserted(int departmentId, double salary) {
+        added(departmentId, salary);
+    }
+
+    void recordUpdated(int sellerId, int departmentId, double salary) {
+        Integer oldDepartmentId = departmentBefore.remove(sellerId);
+        Double oldSalary = salaryBefore.remove(sellerId);
+        if (oldDepartmentId == null) {
+            return;
+        }
+        if (oldDepartmentId != departmentId || oldSalary != salary) {
+            removed(oldDepartmentId, oldSalary);
+            added(departmentId, salary);
+        }
+    }
+
+    void recordDeleted(int sellerId) {
+        Integer oldDepartmentId = departmentBefore.remove(sellerId);
+        Double oldSalary = salaryBefore.remove(sellerId);
+        if (oldDepartmentId != null) {
+            removed(oldDepartmentId, oldSalary);
+        }
+    }
+
+    void merge(PayrollDelta other) {
+        for (Map.Entry<Integer, Integer> entry : other.headcount.entrySet()) {
+            add(entry.getKey(), entry.getValue(), other.totalSalary.get(entry.getKey()));
+        }
+        for (Map.Entry<Integer, Double> entry : other.minAdded.entrySet()) {
+            minAdded.merge(entry.getKey(), entry.getValue(), Math::min);
+        }
+        for (Map.Entry<Integer, Double> entry : other.maxAdded.entrySet()) {
+            maxAdded.merge(entry.getKey(), entry.getValue(), Math::max);
+        }
+        removedFrom.addAll(other.removedFrom);
+    }
+
+    Set<Integer> getDepartmentIds() {
+        return new TreeSet<>(headcount.keySet());
+    }
+
+    int getHeadcount(int departmentId) {
+        return headcount.get(departmentId);
+    }
+
+    double getTotalSalary(int departmentId) {
+        return totalSalary.get(departmentId);
+    }
+
+    boolean hasRemovals(int departmentId) {
+        return removedFrom.contains(departmentId);
+    }
+
+    Double getMinAdded(int departmentId) {
+        return minAdded.get(departmentId);
+    }
+
+    Double getMaxAdded(int departmentId) {
+        return maxAdded.get(departmentId);
+    }
+
+    boolean isEmpty() {
+        return headcount.isEmpty();
+    }
+
+    private void added(int departmentId, double salary) {
+        add(departmentId, 1, salary);
+        minAdded.merge(departmentId, salary, Math::min);
+        maxAdded.merge(departmentId, salary, Math::max);
+    }
+
+    private void removed(int departmentId, double salary) {
+        add(departmentId, -1, -salary);
+        removedFrom.add(departmentId);
+    }
+
+    private void add(int departmentId, int count, double salary) {
+        headcount.merge(departmentId, count, Integer::sum);
+        totalSalary.merge(departmentId, salary, Double::sum);
+    }
+}
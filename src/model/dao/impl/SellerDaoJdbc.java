@@ -1,106 +1,158 @@
 package model.dao.impl;
 
+import db.DBConcurrencyException;
 import db.DBException;
 import db.DBIntegrityException;
 import db.Db;
+import model.dao.BatchResult;
+import model.dao.ChangeLogDao;
+import model.dao.ChangeRecord;
+import model.dao.ChangeType;
+import model.dao.DAOFactory;
+import model.dao.SellerCursor;
 import model.dao.SellerDao;
+import model.dao.SellerQuery;
 import model.entities.Department;
 import model.entities.Seller;
 
 import java.sql.*;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class SellerDaoJdbc implements SellerDao {
 
-    private Connection conn;
+    private final int batchChunkSize = Integer.parseInt(Db.getProperties().getProperty("batch.chunkSize", "500"));
 
-    public SellerDaoJdbc(Connection conn) {
-        this.conn = conn;
-    }
+    private final int streamFetchSize = Integer.parseInt(Db.getProperties().getProperty("stream.fetchSize", "1000"));
+
+    private final ChangeLogDao changeLog = DAOFactory.createChangeLogDAO();
+
+    private final DepartmentPayrollDaoJdbc payroll = new DepartmentPayrollDaoJdbc();
+
+    private static final String SELECT_SELLER = "SELECT "
+            +"seller.Id, seller.Name, seller.Email, seller.BirthDate, seller.BaseSalary, "
+            +"seller.Version, seller.DepartmentId, department.Name DepartmentName "
+            +"FROM seller "
+            +"INNER JOIN department ON department.Id = seller.DepartmentId ";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO seller (Name, Email, BirthDate, BaseSalary, DepartmentId) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SQL =
+            "UPDATE seller SET Name = ?, Email = ?, BirthDate = ?, BaseSalary = ?, DepartmentId = ?, Version = Version + 1 "
+            +"WHERE Id = ? AND (? IS NULL OR Version = ?)";
+
+    private static final String DELETE_SQL = "DELETE FROM seller WHERE Id = ?";
+
+    private static final String FIND_BY_ID_SQL = SELECT_SELLER + "WHERE seller.Id = ? ";
+
+    private static final int FIND_BY_IDS_CHUNK_SIZE = 128;
+
+    private static final String FIND_ALL_SQL = SELECT_SELLER + "ORDER BY seller.Name, seller.Id";
+
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM seller";
+
+    private static final Map<String, String> QUERY_SQL_BY_SHAPE = new ConcurrentHashMap<>();
+
+    private static final String FIND_BY_DEPARTMENT_SQL = SELECT_SELLER
+            +"WHERE seller.DepartmentId = ? "
+            +"ORDER BY seller.Name";
 
     @Override
     public void insert(Seller seller) {
-        String sql = "INSERT INTO seller (Name, Email, BirthDate, BaseSalary, DepartmentId) VALUES (?, ?, ?, ?, ?)";
-        try (PreparedStatement preparedStatement = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            preparedStatement.setString(1,seller.getName());
-            preparedStatement.setString(2,seller.getEmail());
-            preparedStatement.setDate(3,java.sql.Date.valueOf(seller.getBirthDate()));
-            preparedStatement.setDouble(4,seller.getBaseSalary());
-            preparedStatement.setInt(5,seller.getDepartment().getId());
-            Db.beginTransaction();
-            int rowsAffected = preparedStatement.executeUpdate();
-            Db.commitTransaction();
-            if (rowsAffected > 0) {
-                ResultSet resultSet = preparedStatement.getGeneratedKeys();
-                if (resultSet.next()) {
-                    seller.setId(resultSet.getInt(1));
+        Db.inTransaction(conn -> {
+            try (PreparedStatement preparedStatement = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                setSellerParameters(preparedStatement,seller);
+                int rowsAffected = preparedStatement.executeUpdate();
+                if (rowsAffected == 0) {
+                    throw new SQLException("No row affected");
+                }
+                try (ResultSet resultSet = preparedStatement.getGeneratedKeys()) {
+                    if (resultSet.next()) {
+                        seller.setId(resultSet.getInt(1));
+                        seller.setVersion(0);
+                    }
                 }
-            } else {
-                throw new SQLException("No row affected");
             }
-        } catch (SQLException e) {
-            Db.rollbackTransaction();
-            throw new DBException(e.getMessage());
-        }
+            changeLog.record(ChangeRecord.SELLER, ChangeType.INSERTED, List.of(seller.getId()));
+            PayrollDelta delta = new PayrollDelta();
+            delta.recordInserted(seller.getDepartment().getId(), seller.getBaseSalary());
+            payroll.applyAtCommit(delta);
+            return null;
+        });
     }
 
     @Override
     public void update(Seller seller) {
-        String sql = "UPDATE seller SET Name = ?, Email = ?, BirthDate = ?, BaseSalary = ?, DepartmentId = ? WHERE Id = ?";
-        try (PreparedStatement preparedStatement = conn.prepareStatement(sql,Statement.RETURN_GENERATED_KEYS)) {
-            preparedStatement.setString(1,seller.getName());
-            preparedStatement.setString(2,seller.getEmail());
-            preparedStatement.setDate(3,java.sql.Date.valueOf(seller.getBirthDate()));
-            preparedStatement.setDouble(4,seller.getBaseSalary());
-            preparedStatement.setInt(5,seller.getDepartment().getId());
-            preparedStatement.setInt(6,seller.getId());
-            Db.beginTransaction();
-            int rowsAffected = preparedStatement.executeUpdate();
-            Db.commitTransaction();
-            if (rowsAffected == 0) {
-                throw new SQLException("No row affected");
+        Db.inTransaction(conn -> {
+            PayrollDelta delta = payroll.lockSellers(conn, List.of(seller.getId()));
+            try (PreparedStatement preparedStatement = conn.prepareStatement(UPDATE_SQL)) {
+                setSellerParameters(preparedStatement,seller);
+                setVersionParameters(preparedStatement,seller);
+                int rowsAffected = preparedStatement.executeUpdate();
+                if (rowsAffected == 0) {
+                    if (seller.getVersion() != null) {
+                        throw new DBConcurrencyException("Seller " + seller.getId()
+                                + " was changed or deleted by another user");
+                    }
+                    throw new SQLException("No row affected");
+                }
             }
-        } catch (SQLException e) {
-            Db.rollbackTransaction();
-            throw new DBException(e.getMessage());
-        }
+            changeLog.record(ChangeRecord.SELLER, ChangeType.UPDATED, List.of(seller.getId()));
+            delta.recordUpdated(seller.getId(), seller.getDepartment().getId(), seller.getBaseSalary());
+            payroll.applyAtCommit(delta);
+            Db.afterCommit(() -> seller.setVersion(nextVersion(seller.getVersion())));
+            return null;
+        });
+    }
+
+    @Override
+    public BatchResult<Seller> insertAll(Collection<Seller> sellers) {
+        return executeInChunks(sellers, true);
+    }
+
+    @Override
+    public BatchResult<Seller> updateAll(Collection<Seller> sellers) {
+        return executeInChunks(sellers, false);
     }
 
     @Override
     public void deleteById(int id) {
-        String sql = "DELETE FROM seller WHERE Id = ?";
-        try (PreparedStatement preparedStatement = conn.prepareStatement(sql)) {
-            preparedStatement.setInt(1,id);
-            Db.beginTransaction();
-            preparedStatement.executeUpdate();
-            Db.commitTransaction();
-        } catch (SQLIntegrityConstraintViolationException e) {
-            Db.rollbackTransaction();
-            throw new DBIntegrityException(e.getMessage());
-        } catch (SQLException e) {
-            Db.rollbackTransaction();
-            throw new DBException(e.getMessage());
-        }
+        Db.inTransaction(conn -> {
+            PayrollDelta delta = payroll.lockSellers(conn, List.of(id));
+            try (PreparedStatement preparedStatement = conn.prepareStatement(DELETE_SQL)) {
+                preparedStatement.setInt(1,id);
+                if (preparedStatement.executeUpdate() > 0) {
+                    changeLog.record(ChangeRecord.SELLER, ChangeType.DELETED, List.of(id));
+                    delta.recordDeleted(id);
+                    payroll.applyAtCommit(delta);
+                }
+            } catch (SQLIntegrityConstraintViolationException e) {
+                throw new DBIntegrityException(e.getMessage());
+            }
+            return null;
+        });
     }
 
     @Override
     public Seller findById(int id) {
-        var sql = "SELECT "
-            +"seller.Id, seller.Name, seller.Email, seller.BirthDate, seller.BaseSalary, "
-            +"seller.DepartmentId, department.Name DepartmentName "
-            +"FROM seller "
-            +"INNER JOIN department ON department.Id = seller.DepartmentId "
-            +"WHERE seller.Id = ? ";
-
         Seller seller = null;
-        try (PreparedStatement preparedStatement = conn.prepareStatement(sql)) {
+        try (Connection conn = Db.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(FIND_BY_ID_SQL)) {
             preparedStatement.setInt(1,id);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            if (resultSet.next()) {
-                seller = instantiateSeller(resultSet,instantiateDepartment(resultSet));
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    seller = new SellerRowMapper(resultSet).map(resultSet);
+                }
             }
         } catch (SQLException e) {
             throw new DBException(e.getMessage());
@@ -109,29 +161,42 @@ public class SellerDaoJdbc implements SellerDao {
     }
 
     @Override
-    public List<Seller> findAll() {
-        var sql = "SELECT "
-            +"seller.Id, seller.Name, seller.Email, seller.BirthDate, seller.BaseSalary, "
-            +"seller.DepartmentId, department.Name DepartmentName "
-            +"FROM seller "
-            +"INNER JOIN department ON department.Id = seller.DepartmentId "
-            +"ORDER BY seller.Name";
+    public List<Seller> findByIds(Collection<Integer> ids) {
+        List<Integer> remaining = new ArrayList<>(ids);
+        List<Seller> sellers = new ArrayList<>(remaining.size());
+        try (Connection conn = Db.getConnection()) {
+            for (int from = 0; from < remaining.size(); from += FIND_BY_IDS_CHUNK_SIZE) {
+                List<Integer> chunk = remaining.subList(from, Math.min(from + FIND_BY_IDS_CHUNK_SIZE, remaining.size()));
+                int parameters = paddedSize(chunk.size());
+                String sql = QUERY_SQL_BY_SHAPE.computeIfAbsent("ids:" + parameters, key -> SELECT_SELLER
+                        + "WHERE seller.Id IN (" + "?,".repeat(parameters - 1) + "?) ");
+                try (PreparedStatement preparedStatement = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < parameters; i++) {
+                        preparedStatement.setInt(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                    }
+                    try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                        SellerRowMapper rowMapper = new SellerRowMapper(resultSet);
+                        while (resultSet.next()) {
+                            sellers.add(rowMapper.map(resultSet));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        }
+        return sellers;
+    }
 
-        try (PreparedStatement preparedStatement = conn.prepareStatement(sql)) {
+    @Override
+    public List<Seller> findAll() {
+        try (Connection conn = Db.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(FIND_ALL_SQL);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
             List<Seller> sellers = new ArrayList<>();
-            ResultSet resultSet = preparedStatement.executeQuery();
-            Map<Integer,Department> departmentMap = new HashMap<>();
+            SellerRowMapper rowMapper = new SellerRowMapper(resultSet);
             while (resultSet.next()) {
-                Integer departmentId = resultSet.getInt("DepartmentId");
-                Department department;
-                if (!departmentMap.containsKey(departmentId)) {
-                    department = instantiateDepartment(resultSet);
-                    departmentMap.put(departmentId,department);
-                } else {
-                    department = departmentMap.get(departmentId);
-                }
-                Seller seller = instantiateSeller(resultSet,department);
-                sellers.add(seller);
+                sellers.add(rowMapper.map(resultSet));
             }
             return sellers;
         } catch (SQLException e) {
@@ -141,48 +206,428 @@ public class SellerDaoJdbc implements SellerDao {
 
     @Override
     public List<Seller> findByDepartment(Integer departmentId) {
-        var sql = "SELECT "
-            +"seller.Id, seller.Name, seller.Email, seller.BirthDate, seller.BaseSalary, "
-            +"seller.DepartmentId, department.Name DepartmentName "
-            +"FROM seller "
-            +"INNER JOIN department ON department.Id = seller.DepartmentId "
-            +"WHERE seller.DepartmentId = ? "
-            +"ORDER BY seller.Name";
+        try (Connection conn = Db.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(FIND_BY_DEPARTMENT_SQL)) {
+            preparedStatement.setInt(1,departmentId);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                List<Seller> sellers = new ArrayList<>();
+                SellerRowMapper rowMapper = new SellerRowMapper(resultSet);
+                Department department = null;
+                while (resultSet.next()) {
+                    if (department == null) {
+                        department = rowMapper.mapDepartment(resultSet);
+                    }
+                    Seller seller = rowMapper.map(resultSet,department);
+                    sellers.add(seller);
+                }
+                return sellers;
+            }
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        }
+    }
 
+    @Override
+    public Stream<Seller> streamAll() {
+        return stream(FIND_ALL_SQL, null);
+    }
 
-        try (PreparedStatement preparedStatement = conn.prepareStatement(sql)) {
-            preparedStatement.setInt(1,departmentId);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            List<Seller> sellers = new ArrayList<>();
-            Department department = null;
+    @Override
+    public void streamAll(Consumer<Seller> consumer) {
+        try (Stream<Seller> sellers = streamAll()) {
+            sellers.forEach(consumer);
+        }
+    }
+
+    @Override
+    public Stream<Seller> streamByDepartment(Integer departmentId) {
+        return stream(FIND_BY_DEPARTMENT_SQL, departmentId);
+    }
+
+    @Override
+    public void streamByDepartment(Integer departmentId, Consumer<Seller> consumer) {
+        try (Stream<Seller> sellers = streamByDepartment(departmentId)) {
+            sellers.forEach(consumer);
+        }
+    }
+
+    @Override
+    public List<Seller> findPage(SellerCursor after, int pageSize) {
+        return findPage(null, after, pageSize);
+    }
+
+    @Override
+    public List<Seller> findPage(SellerQuery query, SellerCursor after, int pageSize) {
+        try (Connection conn = Db.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(pageSql(query, after != null))) {
+            int index = setQueryParameters(preparedStatement, query, 1);
+            if (after != null) {
+                preparedStatement.setString(index++,after.getName());
+                preparedStatement.setString(index++,after.getName());
+                preparedStatement.setInt(index++,after.getId());
+            }
+            preparedStatement.setInt(index,pageSize);
+            return readPage(preparedStatement, pageSize);
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        }
+    }
+
+    @Override
+    public List<Seller> findPageAt(SellerQuery query, int offset, int pageSize) {
+        try (Connection conn = Db.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(pageAtSql(query))) {
+            int index = setQueryParameters(preparedStatement, query, 1);
+            preparedStatement.setInt(index++,pageSize);
+            preparedStatement.setInt(index,offset);
+            return readPage(preparedStatement, pageSize);
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        }
+    }
+
+    private List<Seller> readPage(PreparedStatement preparedStatement, int pageSize) throws SQLException {
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+            List<Seller> sellers = new ArrayList<>(pageSize);
+            SellerRowMapper rowMapper = new SellerRowMapper(resultSet);
             while (resultSet.next()) {
-                if (department == null) {
-                    department = instantiateDepartment(resultSet);
-                }
-                Seller seller = instantiateSeller(resultSet,department);
-                sellers.add(seller);
+                sellers.add(rowMapper.map(resultSet));
             }
             return sellers;
+        }
+    }
+
+    @Override
+    public int count() {
+        return count(null);
+    }
+
+    @Override
+    public int count(SellerQuery query) {
+        try (Connection conn = Db.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(countSql(query))) {
+            setQueryParameters(preparedStatement, query, 1);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt(1) : 0;
+            }
         } catch (SQLException e) {
             throw new DBException(e.getMessage());
         }
     }
 
-    private Seller instantiateSeller(ResultSet resultSet, Department department) throws SQLException {
-        Seller seller = new Seller();
-        seller.setId(resultSet.getInt("Id"));
-        seller.setName(resultSet.getString("Name"));
-        seller.setEmail(resultSet.getString("Email"));
-        seller.setBirthDate(resultSet.getDate("BirthDate").toLocalDate());
-        seller.setBaseSalary(resultSet.getDouble("BaseSalary"));
-        seller.setDepartment(department);
-        return seller;
+    @Override
+    public int countBefore(SellerQuery query, SellerCursor cursor) {
+        try (Connection conn = Db.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(countBeforeSql(query))) {
+            int index = setQueryParameters(preparedStatement, query, 1);
+            preparedStatement.setString(index++,cursor.getName());
+            preparedStatement.setString(index++,cursor.getName());
+            preparedStatement.setInt(index,cursor.getId());
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new DBException(e.getMessage());
+        }
+    }
+
+    private Stream<Seller> stream(String sql, Integer departmentId) {
+        Connection conn = Db.getConnection();
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        SellerRowMapper rowMapper;
+        try {
+            preparedStatement = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            preparedStatement.setFetchSize(streamFetchSize);
+            if (departmentId != null) {
+                preparedStatement.setInt(1,departmentId);
+            }
+            resultSet = preparedStatement.executeQuery();
+            rowMapper = new SellerRowMapper(resultSet);
+        } catch (SQLException e) {
+            closeQuietly(resultSet, preparedStatement, conn);
+            throw new DBException(e.getMessage());
+        }
+        ResultSet rows = resultSet;
+        PreparedStatement statement = preparedStatement;
+        Spliterator<Seller> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Seller> action) {
+                try {
+                    if (!rows.next()) {
+                        return false;
+                    }
+                    action.accept(rowMapper.map(rows));
+                    return true;
+                } catch (SQLException e) {
+                    throw new DBException(e.getMessage());
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> closeQuietly(rows, statement, conn));
+    }
+
+    private static void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                // keep closing the remaining resources
+            }
+        }
+    }
+
+    private String pageSql(SellerQuery query, boolean afterCursor) {
+        String shape = "page:" + shapeOf(query) + (afterCursor ? ":after" : "");
+        return QUERY_SQL_BY_SHAPE.computeIfAbsent(shape, key -> {
+            List<String> predicates = predicatesOf(query);
+            if (afterCursor) {
+                predicates.add("(seller.Name > ? OR (seller.Name = ? AND seller.Id > ?))");
+            }
+            return SELECT_SELLER + where(predicates) + "ORDER BY seller.Name, seller.Id LIMIT ?";
+        });
+    }
+
+    // only for jumps into rows that were never paged to; scrolling on from a loaded page stays on the keyset
+    private String pageAtSql(SellerQuery query) {
+        return QUERY_SQL_BY_SHAPE.computeIfAbsent("page:" + shapeOf(query) + ":at",
+                key -> SELECT_SELLER + where(predicatesOf(query)) + "ORDER BY seller.Name, seller.Id LIMIT ? OFFSET ?");
+    }
+
+    // the keyset predicate of a page query reversed, so it runs off the same (Name, Id) index
+    private String countBeforeSql(SellerQuery query) {
+        return QUERY_SQL_BY_SHAPE.computeIfAbsent("before:" + shapeOf(query), key -> {
+            List<String> predicates = predicatesOf(query);
+            predicates.add("(seller.Name < ? OR (seller.Name = ? AND seller.Id < ?))");
+            return COUNT_SQL + " " + where(predicates);
+        });
+    }
+
+    private String countSql(SellerQuery query) {
+        return QUERY_SQL_BY_SHAPE.computeIfAbsent("count:" + shapeOf(query),
+                key -> COUNT_SQL + " " + where(predicatesOf(query)));
+    }
+
+    private String shapeOf(SellerQuery query) {
+        if (query == null || query.isEmpty()) {
+            return "";
+        }
+        return (query.getNamePrefix() != null ? "n" : "")
+                + (query.getEmail() != null ? "e" : "")
+                + (query.getMinBaseSalary() != null ? "s" : "")
+                + (query.getMaxBaseSalary() != null ? "S" : "")
+                + (query.getBirthDateFrom() != null ? "b" : "")
+                + (query.getBirthDateTo() != null ? "B" : "")
+                + "d" + paddedSize(query.getDepartmentIds().size());
+    }
+
+    private List<String> predicatesOf(SellerQuery query) {
+        List<String> predicates = new ArrayList<>();
+        if (query == null) {
+            return predicates;
+        }
+        if (query.getNamePrefix() != null) {
+            predicates.add("seller.Name LIKE ? ESCAPE '!'");
+        }
+        if (query.getEmail() != null) {
+            predicates.add("seller.Email = ?");
+        }
+        if (query.getMinBaseSalary() != null) {
+            predicates.add("seller.BaseSalary >= ?");
+        }
+        if (query.getMaxBaseSalary() != null) {
+            predicates.add("seller.BaseSalary <= ?");
+        }
+        if (query.getBirthDateFrom() != null) {
+            predicates.add("seller.BirthDate >= ?");
+        }
+        if (query.getBirthDateTo() != null) {
+            predicates.add("seller.BirthDate <= ?");
+        }
+        int departments = paddedSize(query.getDepartmentIds().size());
+        if (departments > 0) {
+            predicates.add("seller.DepartmentId IN (" + "?,".repeat(departments - 1) + "?)");
+        }
+        return predicates;
+    }
+
+    private String where(List<String> predicates) {
+        return predicates.isEmpty() ? "" : "WHERE " + String.join(" AND ", predicates) + " ";
+    }
+
+    private int setQueryParameters(PreparedStatement preparedStatement, SellerQuery query, int index) throws SQLException {
+        if (query == null) {
+            return index;
+        }
+        if (query.getNamePrefix() != null) {
+            preparedStatement.setString(index++, escapeLike(query.getNamePrefix()) + "%");
+        }
+        if (query.getEmail() != null) {
+            preparedStatement.setString(index++, query.getEmail());
+        }
+        if (query.getMinBaseSalary() != null) {
+            preparedStatement.setDouble(index++, query.getMinBaseSalary());
+        }
+        if (query.getMaxBaseSalary() != null) {
+            preparedStatement.setDouble(index++, query.getMaxBaseSalary());
+        }
+        if (query.getBirthDateFrom() != null) {
+            preparedStatement.setDate(index++, java.sql.Date.valueOf(query.getBirthDateFrom()));
+        }
+        if (query.getBirthDateTo() != null) {
+            preparedStatement.setDate(index++, java.sql.Date.valueOf(query.getBirthDateTo()));
+        }
+        int departments = paddedSize(query.getDepartmentIds().size());
+        int lastDepartmentId = 0;
+        Iterator<Integer> departmentIds = query.getDepartmentIds().iterator();
+        for (int i = 0; i < departments; i++) {
+            if (departmentIds.hasNext()) {
+                lastDepartmentId = departmentIds.next();
+            }
+            preparedStatement.setInt(index++, lastDepartmentId);
+        }
+        return index;
+    }
+
+    private static int paddedSize(int size) {
+        return size <= 1 ? size : Integer.highestOneBit(size - 1) << 1;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    private BatchResult<Seller> executeInChunks(Collection<Seller> sellers, boolean insert) {
+        BatchResult<Seller> result = new BatchResult<>();
+        List<Seller> chunk = new ArrayList<>(Math.min(batchChunkSize, sellers.size()));
+        int chunkIndex = 0;
+        for (Seller seller : sellers) {
+            chunk.add(seller);
+            if (chunk.size() == batchChunkSize) {
+                executeChunk(chunk, chunkIndex++, insert, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            executeChunk(chunk, chunkIndex, insert, result);
+        }
+        return result;
+    }
+
+    private void executeChunk(List<Seller> chunk, int chunkIndex, boolean insert, BatchResult<Seller> result) {
+        List<Seller> conflicts = new ArrayList<>();
+        try {
+            int[] generatedIds = Db.inSavepoint(conn -> {
+                PayrollDelta delta = insert ? new PayrollDelta() : payroll.lockSellers(conn, idsOf(chunk));
+                try (PreparedStatement preparedStatement = insert
+                        ? conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)
+                        : conn.prepareStatement(UPDATE_SQL)) {
+                    for (Seller seller : chunk) {
+                        setSellerParameters(preparedStatement,seller);
+                        if (!insert) {
+                            setVersionParameters(preparedStatement,seller);
+                        }
+                        preparedStatement.addBatch();
+                    }
+                    int[] rowsAffected = preparedStatement.executeBatch();
+                    List<Seller> updated = new ArrayList<>(chunk.size());
+                    for (int i = 0; i < rowsAffected.length; i++) {
+                        if (rowsAffected[i] != 0) {
+                            updated.add(chunk.get(i));
+                        } else if (!insert && chunk.get(i).getVersion() != null) {
+                            conflicts.add(chunk.get(i));
+                        } else {
+                            throw new SQLException("No row affected");
+                        }
+                    }
+                    if (insert) {
+                        int[] ids = readGeneratedIds(preparedStatement, chunk.size());
+                        List<Integer> inserted = new ArrayList<>(ids.length);
+                        for (int id : ids) {
+                            inserted.add(id);
+                        }
+                        changeLog.record(ChangeRecord.SELLER, ChangeType.INSERTED, inserted);
+                        for (Seller seller : chunk) {
+                            delta.recordInserted(seller.getDepartment().getId(), seller.getBaseSalary());
+                        }
+                        payroll.applyAtCommit(delta);
+                        return ids;
+                    }
+                    List<Integer> updatedIds = idsOf(updated);
+                    changeLog.record(ChangeRecord.SELLER, ChangeType.UPDATED, updatedIds);
+                    for (Seller seller : updated) {
+                        delta.recordUpdated(seller.getId(), seller.getDepartment().getId(), seller.getBaseSalary());
+                    }
+                    payroll.applyAtCommit(delta);
+                    Db.afterCommit(() -> {
+                        for (Seller seller : updated) {
+                            seller.setVersion(nextVersion(seller.getVersion()));
+                        }
+                    });
+                    return null;
+                }
+            });
+            if (generatedIds != null) {
+                for (int i = 0; i < generatedIds.length; i++) {
+                    chunk.get(i).setId(generatedIds[i]);
+                    chunk.get(i).setVersion(0);
+                }
+            }
+            result.addSucceeded(chunk.size() - conflicts.size());
+            for (Seller conflict : conflicts) {
+                result.addConflict(conflict);
+            }
+        } catch (RuntimeException e) {
+            result.addFailure(new BatchResult.Failure<>(chunkIndex, new ArrayList<>(chunk), e.getMessage()));
+        }
+    }
+
+    private static List<Integer> idsOf(List<Seller> sellers) {
+        List<Integer> ids = new ArrayList<>(sellers.size());
+        for (Seller seller : sellers) {
+            ids.add(seller.getId());
+        }
+        return ids;
+    }
+
+    private int[] readGeneratedIds(PreparedStatement preparedStatement, int expected) throws SQLException {
+        int[] ids = new int[expected];
+        int count = 0;
+        try (ResultSet resultSet = preparedStatement.getGeneratedKeys()) {
+            while (resultSet.next() && count < expected) {
+                ids[count++] = resultSet.getInt(1);
+            }
+        }
+        if (count != expected) {
+            throw new SQLException("Expected " + expected + " generated keys but got " + count);
+        }
+        return ids;
+    }
+
+    private void setVersionParameters(PreparedStatement preparedStatement, Seller seller) throws SQLException {
+        preparedStatement.setInt(6,seller.getId());
+        if (seller.getVersion() == null) {
+            preparedStatement.setNull(7,Types.INTEGER);
+            preparedStatement.setNull(8,Types.INTEGER);
+        } else {
+            preparedStatement.setInt(7,seller.getVersion());
+            preparedStatement.setInt(8,seller.getVersion());
+        }
+    }
+
+    private static Integer nextVersion(Integer version) {
+        return version == null ? null : version + 1;
     }
 
-    private Department instantiateDepartment(ResultSet resultSet) throws SQLException {
-        Department department = new Department();
-        department.setId(resultSet.getInt("DepartmentId"));
-        department.setName(resultSet.getString("DepartmentName"));
-        return department;
+    private void setSellerParameters(PreparedStatement preparedStatement, Seller seller) throws SQLException {
+        preparedStatement.setString(1,seller.getName());
+        preparedStatement.setString(2,seller.getEmail());
+        preparedStatement.setDate(3,java.sql.Date.valueOf(seller.getBirthDate()));
+        preparedStatement.setDouble(4,seller.getBaseSalary());
+        preparedStatement.setInt(5,seller.getDepartment().getId());
     }
 }
@@ -0,0 +1,95 @@
+package model.dao.impl;
+
+import model.dao.DepartmentCache;
+import model.entities.Department;
+import model.entities.Seller;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+public class SellerRowMapper {
+
+    private final int id;
+    private final int name;
+    private final int email;
+    private final int birthDate;
+    private final int baseSalary;
+    private final int version;
+    private final int departmentId;
+    private final int departmentName;
+
+    private final Map<Integer, Department> departments = new HashMap<>();
+    private Department lastDepartment;
+    private boolean localDateSupported = true;
+
+    public SellerRowMapper(ResultSet resultSet) throws SQLException {
+        id = resultSet.findColumn("Id");
+        name = resultSet.findColumn("Name");
+        email = resultSet.findColumn("Email");
+        birthDate = resultSet.findColumn("BirthDate");
+        baseSalary = resultSet.findColumn("BaseSalary");
+        version = resultSet.findColumn("Version");
+        departmentId = resultSet.findColumn("DepartmentId");
+        departmentName = resultSet.findColumn("DepartmentName");
+    }
+
+    public Seller map(ResultSet resultSet) throws SQLException {
+        return map(resultSet, mapDepartment(resultSet));
+    }
+
+    public Seller map(ResultSet resultSet, Department department) throws SQLException {
+        Seller seller = new Seller();
+        seller.setId(resultSet.getInt(id));
+        seller.setName(resultSet.getString(name));
+        seller.setEmail(resultSet.getString(email));
+        seller.setBirthDate(readLocalDate(resultSet, birthDate));
+        seller.setBaseSalary(resultSet.getDouble(baseSalary));
+        seller.setDepartment(department);
+        seller.setVersion(resultSet.getInt(version));
+        return seller;
+    }
+
+    public Department mapDepartment(ResultSet resultSet) throws SQLException {
+        int departmentId = resultSet.getInt(this.departmentId);
+        if (lastDepartment != null && lastDepartment.getId() == departmentId) {
+            return lastDepartment;
+        }
+        Department department = departments.get(departmentId);
+        if (department == null) {
+            department = DepartmentCache.getInstance().resolve(departmentId, resultSet.getString(departmentName));
+            departments.put(departmentId, department);
+        }
+        lastDepartment = department;
+        return department;
+    }
+
+    private LocalDate readLocalDate(ResultSet resultSet, int column) throws SQLException {
+        if (localDateSupported) {
+            try {
+                return resultSet.getObject(column, LocalDate.class);
+            } catch (SQLFeatureNotSupportedException | SQLDataException | UnsupportedOperationException e) {
+                localDateSupported = false;
+            } catch (SQLException e) {
+                if (!isConversionError(e)) {
+                    throw e;
+                }
+                localDateSupported = false;
+            }
+        }
+        Date date = resultSet.getDate(column);
+        return date == null ? null : date.toLocalDate();
+    }
+
+    private static boolean isConversionError(SQLException e) {
+        // SQLState class 22 is a data conversion error, 0A an unsupported feature, and older MySQL
+        // Connector/J versions report "Conversion not supported for type" as S1009
+        String sqlState = e.getSQLState();
+        return sqlState != null && (sqlState.startsWith("22") || sqlState.startsWith("0A") || sqlState.equals("S1009"));
+    }
+}
@@ -7,6 +7,7 @@ public class Department implements Serializable {
 
     private Integer id;
     private String name;
+    private Integer version;
 
     public Department() {}
 
@@ -31,6 +32,14 @@ public class Department implements Serializable {
         this.name = name;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -49,6 +58,7 @@ public class Department implements Serializable {
         return "Department{" +
                 "id=" + id +
                 ", name='" + name + '\'' +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,77 @@
+package model.entities;
+
+import java.io.Serializable;
+
+public class DepartmentPayroll implements Serializable {
+
+    private Department department;
+    private int headcount;
+    private double totalSalary;
+    private Double minSalary;
+    private Double maxSalary;
+
+    public DepartmentPayroll() {}
+
+    public DepartmentPayroll(Department department, int headcount, double totalSalary, Double minSalary, Double maxSalary) {
+        this.department = department;
+        this.headcount = headcount;
+        this.totalSalary = totalSalary;
+        this.minSalary = minSalary;
+        this.maxSalary = maxSalary;
+    }
+
+    public Department getDepartment() {
+        return department;
+    }
+
+    public void setDepartment(Department department) {
+        this.department = department;
+    }
+
+    public int getHeadcount() {
+        return headcount;
+    }
+
+    public void setHeadcount(int headcount) {
+        this.headcount = headcount;
+    }
+
+    public double getTotalSalary() {
+        return totalSalary;
+    }
+
+    public void setTotalSalary(double totalSalary) {
+        this.totalSalary = totalSalary;
+    }
+
+    public Double getMinSalary() {
+        return minSalary;
+    }
+
+    public void setMinSalary(Double minSalary) {
+        this.minSalary = minSalary;
+    }
+
+    public Double getMaxSalary() {
+        return maxSalary;
+    }
+
+    public void setMaxSalary(Double maxSalary) {
+        this.maxSalary = maxSalary;
+    }
+
+    public Double getAverageSalary() {
+        return headcount == 0 ? null : totalSalary / headcount;
+    }
+
+    @Override
+    public String toString() {
+        return "DepartmentPayroll{" +
+                "department=" + department +
+                ", headcount=" + headcount +
+                ", totalSalary=" + totalSalary +
+                ", minSalary=" + minSalary +
+                ", maxSalary=" + maxSalary +
+                '}';
+    }
+}
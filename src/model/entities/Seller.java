@@ -11,6 +11,7 @@ public class Seller {
     private LocalDate birthDate;
     private Double baseSalary;
     private Department department;
+    private Integer version;
 
     public Seller(){}
 
@@ -71,6 +72,14 @@ public class Seller {
         this.department = department;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -93,6 +102,7 @@ public class Seller {
                 ", birthDate=" + birthDate +
                 ", baseSalary=" + baseSalary +
                 ", department=" + department +
+                ", version=" + version +
                 '}';
     }
 }
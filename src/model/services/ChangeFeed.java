@@ -0,0 +1,243 @@
+package model.services;
+
+import db.Db;
+import model.dao.ChangeLogDao;
+import model.dao.ChangeRecord;
+import model.dao.ChangeType;
+import model.dao.DAOFactory;
+import model.dao.DepartmentCache;
+import model.dao.DepartmentDao;
+import model.dao.SellerDao;
+import model.dao.impl.CachingSellerDao;
+import model.entities.Department;
+import model.entities.Seller;
+
+import java.lang.ref.WeakReference;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class ChangeFeed {
+
+    private static final Logger LOGGER = Logger.getLogger(ChangeFeed.class.getName());
+
+    private static final long PURGE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private static ChangeFeed instance = null;
+
+    private final ChangeLogDao changeLogDao = DAOFactory.createChangeLogDAO();
+    private final SellerDao sellerDao = DAOFactory.createSellerDAO();
+    private final DepartmentDao departmentDao = DAOFactory.createDepartmentDAO();
+    private final int batchSize;
+    private final long gapTimeoutMillis;
+    private final long retentionHours;
+    private final ScheduledExecutorService poller;
+    private final List<WeakReference<ChangeFeedListener<Seller>>> sellerListeners = new CopyOnWriteArrayList<>();
+    private final List<WeakReference<ChangeFeedListener<Department>>> departmentListeners = new CopyOnWriteArrayList<>();
+
+    private volatile long watermark = -1;
+    private final TreeSet<Long> seenAboveWatermark = new TreeSet<>();
+    private long gapSince = 0;
+    private long lastPurge = 0;
+
+    public ChangeFeed(long pollIntervalMillis, int batchSize, long gapTimeoutMillis, long retentionHours) {
+        this.batchSize = batchSize;
+        this.gapTimeoutMillis = gapTimeoutMillis;
+        this.retentionHours = retentionHours;
+        // the first poll reads the starting watermark, so no query runs on the caller's thread
+        this.poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::pollSafely, 0, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public static synchronized ChangeFeed getInstance() {
+        Properties props = Db.getProperties();
+        if (instance == null && Boolean.parseBoolean(props.getProperty("changeFeed.enabled", "false"))) {
+            instance = new ChangeFeed(
+                    Long.parseLong(props.getProperty("changeFeed.pollIntervalMillis", "2000")),
+                    Integer.parseInt(props.getProperty("changeFeed.batchSize", "500")),
+                    Long.parseLong(props.getProperty("changeFeed.gapTimeoutMillis", "10000")),
+                    Long.parseLong(props.getProperty("changeFeed.retentionHours", "24")));
+        }
+        return instance;
+    }
+
+    public static synchronized void closeInstance() {
+        if (instance != null) {
+            instance.close();
+            instance = null;
+        }
+    }
+
+    public long getWatermark() {
+        return watermark;
+    }
+
+    public void addSellerListener(ChangeFeedListener<Seller> listener) {
+        addListener(sellerListeners, listener);
+    }
+
+    public void addDepartmentListener(ChangeFeedListener<Department> listener) {
+        addListener(departmentListeners, listener);
+    }
+
+    public void close() {
+        poller.shutdownNow();
+    }
+
+    private void pollSafely() {
+        try {
+            if (watermark < 0) {
+                watermark = changeLogDao.lastSequence();
+                return;
+            }
+            long before;
+            do {
+                before = watermark;
+            } while (poll() && watermark > before);
+            purgeIfDue();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Change feed poll failed", e);
+        }
+    }
+
+    private boolean poll() {
+        List<ChangeRecord> records = changeLogDao.findAfter(watermark, batchSize);
+        Map<String, ChangeRecord> changes = new LinkedHashMap<>();
+        for (ChangeRecord record : records) {
+            if (seenAboveWatermark.add(record.getSequence()) && !record.isLocal()) {
+                coalesce(changes, record);
+            }
+        }
+        advanceWatermark();
+        dispatch(changes.values());
+        return records.size() == batchSize;
+    }
+
+    private void advanceWatermark() {
+        while (!seenAboveWatermark.isEmpty()) {
+            if (seenAboveWatermark.first() == watermark + 1) {
+                watermark = seenAboveWatermark.pollFirst();
+                gapSince = 0;
+                continue;
+            }
+            long now = System.currentTimeMillis();
+            if (gapSince == 0) {
+                gapSince = now;
+            }
+            if (now - gapSince < gapTimeoutMillis) {
+                return;
+            }
+            // the missing sequence numbers belong to rolled-back writes, stop waiting for them
+            watermark = seenAboveWatermark.first() - 1;
+            gapSince = 0;
+        }
+    }
+
+    private static void coalesce(Map<String, ChangeRecord> changes, ChangeRecord record) {
+        String key = record.getEntity() + ":" + record.getEntityId();
+        ChangeRecord previous = changes.remove(key);
+        if (previous != null && previous.getType() == ChangeType.INSERTED) {
+            if (record.getType() == ChangeType.DELETED) {
+                return;
+            }
+            record = previous;
+        }
+        changes.put(key, record);
+    }
+
+    private void dispatch(Iterable<ChangeRecord> changes) {
+        List<Integer> changedSellerIds = new ArrayList<>();
+        List<Integer> sellerIds = new ArrayList<>();
+        boolean departmentsChanged = false;
+        for (ChangeRecord change : changes) {
+            if (change.getEntity().equals(ChangeRecord.SELLER)) {
+                changedSellerIds.add(change.getEntityId());
+                if (change.getType() != ChangeType.DELETED) {
+                    sellerIds.add(change.getEntityId());
+                }
+            }
+            departmentsChanged |= change.getEntity().equals(ChangeRecord.DEPARTMENT);
+        }
+        if (departmentsChanged) {
+            DepartmentCache.getInstance().invalidate();
+        }
+        if (!changedSellerIds.isEmpty() && sellerDao instanceof CachingSellerDao) {
+            ((CachingSellerDao) sellerDao).evictAll(changedSellerIds);
+        }
+        Map<Integer, Seller> sellers = new HashMap<>();
+        if (!sellerIds.isEmpty()) {
+            for (Seller seller : sellerDao.findByIds(sellerIds)) {
+                sellers.put(seller.getId(), seller);
+            }
+        }
+        for (ChangeRecord change : changes) {
+            int id = change.getEntityId();
+            if (change.getEntity().equals(ChangeRecord.SELLER)) {
+                Seller seller = change.getType() == ChangeType.DELETED ? null : sellers.get(id);
+                if (seller == null) {
+                    // only an identity for the listeners to match on; the type says what happened
+                    seller = new Seller();
+                    seller.setId(id);
+                    notify(sellerListeners, ChangeType.DELETED, id, seller);
+                } else {
+                    notify(sellerListeners, change.getType(), id, seller);
+                }
+            } else if (change.getEntity().equals(ChangeRecord.DEPARTMENT)) {
+                Department department = change.getType() == ChangeType.DELETED ? null : departmentDao.findById(id);
+                if (department == null) {
+                    notify(departmentListeners, ChangeType.DELETED, id, new Department(id, null));
+                } else {
+                    notify(departmentListeners, change.getType(), id, department);
+                }
+            }
+        }
+    }
+
+    private void purgeIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastPurge < PURGE_INTERVAL_MILLIS) {
+            return;
+        }
+        lastPurge = now;
+        int purged = changeLogDao.deleteBefore(Instant.now().minus(retentionHours, ChronoUnit.HOURS));
+        if (purged > 0) {
+            LOGGER.info("Purged " + purged + " change log rows older than " + retentionHours + "h");
+        }
+    }
+
+    private static <T> void addListener(List<WeakReference<ChangeFeedListener<T>>> listeners,
+                                        ChangeFeedListener<T> listener) {
+        listeners.removeIf(reference -> reference.get() == null || reference.get() == listener);
+        listeners.add(new WeakReference<>(listener));
+    }
+
+    private static <T> void notify(List<WeakReference<ChangeFeedListener<T>>> listeners,
+                                   ChangeType type, int id, T entity) {
+        for (WeakReference<ChangeFeedListener<T>> reference : listeners) {
+            ChangeFeedListener<T> listener = reference.get();
+            if (listener != null) {
+                try {
+                    listener.onChange(type, id, entity);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Change feed listener failed", e);
+                }
+            }
+        }
+    }
+}
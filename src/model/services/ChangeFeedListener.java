@@ -0,0 +1,9 @@
+package model.services;
+
+import model.dao.ChangeType;
+
+public interface ChangeFeedListener<T> {
+
+    void onChange(ChangeType type, int id, T entity);
+
+}
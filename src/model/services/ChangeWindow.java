@@ -0,0 +1,87 @@
+package model.services;
+
+import model.dao.ChangeLogDao;
+import model.dao.ChangeRecord;
+import model.dao.ChangeType;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class ChangeWindow {
+
+    private static final int BATCH_SIZE = 500;
+
+    // past this many changes one COUNT(*) is cheaper than replaying them
+    private static final int MAX_RECORDS = 10_000;
+
+    private final Map<String, ChangeType> firstChange = new HashMap<>();
+    private final Map<String, ChangeType> lastChange = new HashMap<>();
+
+    private ChangeWindow() {}
+
+    // the change log records in (after, upTo], or null when they are no longer all there
+    static ChangeWindow read(ChangeLogDao changeLogDao, long after, long upTo) {
+        if (after < 0 || upTo < after) {
+            return null;
+        }
+        ChangeWindow window = new ChangeWindow();
+        if (upTo == after) {
+            return window;
+        }
+        long first = changeLogDao.firstSequence();
+        if (first == 0 || first > after + 1) {
+            // purged by the retention job, or the log was reset
+            return null;
+        }
+        int read = 0;
+        long sequence = after;
+        while (sequence < upTo) {
+            List<ChangeRecord> records = changeLogDao.findAfter(sequence, BATCH_SIZE);
+            for (ChangeRecord record : records) {
+                if (record.getSequence() > upTo) {
+                    return window;
+                }
+                String key = record.getEntity() + ":" + record.getEntityId();
+                window.firstChange.putIfAbsent(key, record.getType());
+                window.lastChange.put(key, record.getType());
+                sequence = record.getSequence();
+            }
+            read += records.size();
+            if (records.size() < BATCH_SIZE) {
+                return window;
+            }
+            if (read >= MAX_RECORDS) {
+                return null;
+            }
+        }
+        return window;
+    }
+
+    boolean isEmpty() {
+        return lastChange.isEmpty();
+    }
+
+    boolean touches(String entity) {
+        String prefix = entity + ":";
+        for (String key : lastChange.keySet()) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int countDelta(String entity) {
+        String prefix = entity + ":";
+        int delta = 0;
+        for (Map.Entry<String, ChangeType> entry : lastChange.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                boolean existedBefore = firstChange.get(entry.getKey()) != ChangeType.INSERTED;
+                boolean existsAfter = entry.getValue() != ChangeType.DELETED;
+                delta += (existsAfter ? 1 : 0) - (existedBefore ? 1 : 0);
+            }
+        }
+        return delta;
+    }
+}
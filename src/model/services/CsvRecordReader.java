@@ -0,0 +1,86 @@
+package model.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class CsvRecordReader {
+
+    private final String text;
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+    private int position;
+    private int line;
+    private int recordStart;
+    private int recordEnd;
+    private int recordLine;
+
+    CsvRecordReader(String text, int firstLine) {
+        this.text = text;
+        this.line = firstLine;
+    }
+
+    boolean next() {
+        fields.clear();
+        if (position >= text.length()) {
+            return false;
+        }
+        recordStart = position;
+        recordLine = line;
+        boolean quoted = false;
+        boolean fieldStart = true;
+        field.setLength(0);
+        while (position < text.length()) {
+            char c = text.charAt(position++);
+            if (quoted) {
+                if (c == '"') {
+                    if (position < text.length() && text.charAt(position) == '"') {
+                        field.append('"');
+                        position++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append(c);
+                }
+            } else if (c == '"' && fieldStart) {
+                // a quote anywhere else in an unquoted field is kept as a literal character
+                quoted = true;
+                fieldStart = false;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStart = true;
+            } else if (c == '\n') {
+                line++;
+                recordEnd = position - 1 > recordStart && text.charAt(position - 2) == '\r' ? position - 2 : position - 1;
+                fields.add(field.toString());
+                return true;
+            } else if (c != '\r' || position < text.length() && text.charAt(position) != '\n') {
+                field.append(c);
+                fieldStart = false;
+            }
+        }
+        recordEnd = text.length();
+        fields.add(field.toString());
+        return true;
+    }
+
+    List<String> getFields() {
+        return fields;
+    }
+
+    boolean isBlank() {
+        return fields.size() == 1 && fields.get(0).isBlank();
+    }
+
+    int getLine() {
+        return recordLine;
+    }
+
+    String getRawRecord() {
+        return text.substring(recordStart, recordEnd);
+    }
+}
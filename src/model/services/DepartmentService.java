@@ -1,17 +1,72 @@
 package model.services;
 
+import model.dao.ChangeLogDao;
+import model.dao.ChangeRecord;
 import model.dao.DAOFactory;
+import model.dao.DepartmentCache;
 import model.dao.DepartmentDao;
+import model.dao.SyncState;
 import model.entities.Department;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class DepartmentService {
 
     private DepartmentDao departmentDao = DAOFactory.createDepartmentDAO();
 
+    private DepartmentCache departmentCache = DepartmentCache.getInstance();
+
+    private ChangeLogDao changeLogDao = DAOFactory.createChangeLogDAO();
+
     public List<Department> findAll() {
-        return departmentDao.findAll();
+        return departmentCache.findAll(departmentDao::findAll);
+    }
+
+    public void addChangeFeedListener(ChangeFeedListener<Department> listener) {
+        ChangeFeed changeFeed = ChangeFeed.getInstance();
+        if (changeFeed != null) {
+            changeFeed.addDepartmentListener(listener);
+        }
+    }
+
+    public Snapshot<Department> getSnapshot() {
+        LocalSnapshotStore store = LocalSnapshotStore.getInstance();
+        return store == null ? null : store.readDepartments();
+    }
+
+    public Snapshot<Department> syncSnapshot(Snapshot<Department> snapshot) {
+        ChangeFeed changeFeed = ChangeFeed.getInstance();
+        long watermark = changeFeed == null ? -1 : changeFeed.getWatermark();
+        SyncState syncState = snapshot == null ? null : snapshot.getSyncState();
+        List<Department> departments = null;
+        if (syncState != null && watermark >= 0) {
+            if (syncState.getChangeSequence() == watermark) {
+                return snapshot;
+            }
+            ChangeWindow changes = ChangeWindow.read(changeLogDao, syncState.getChangeSequence(), watermark);
+            if (changes != null && !changes.touches(ChangeRecord.DEPARTMENT)) {
+                departments = snapshot.getRows();
+            }
+        }
+        if (departments == null) {
+            departmentCache.invalidate();
+            departments = findAll();
+        }
+        Snapshot<Department> fresh = new Snapshot<>(departments, new SyncState(departments.size(), watermark));
+        LocalSnapshotStore store = LocalSnapshotStore.getInstance();
+        if (store != null) {
+            store.writeDepartments(fresh);
+        }
+        return fresh;
+    }
+
+    public Department findById(int id) {
+        return departmentDao.findById(id);
+    }
+
+    public DepartmentCache getDepartmentCache() {
+        return departmentCache;
     }
 
     public void insertOrUpdate(Department department) {
@@ -25,4 +80,28 @@ public class DepartmentService {
     public void delete(Department department) {
         departmentDao.deleteById(department.getId());
     }
+
+    public CompletableFuture<List<Department>> findAllAsync() {
+        List<Department> cached = departmentCache.getAllIfPresent();
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return ServiceExecutor.supplyAsync(this::findAll);
+    }
+
+    public CompletableFuture<Snapshot<Department>> syncSnapshotAsync(Snapshot<Department> snapshot) {
+        return ServiceExecutor.supplyAsync(() -> syncSnapshot(snapshot));
+    }
+
+    public CompletableFuture<Department> findByIdAsync(int id) {
+        return ServiceExecutor.supplyAsync(() -> findById(id));
+    }
+
+    public CompletableFuture<Void> insertOrUpdateAsync(Department department) {
+        return ServiceExecutor.runAsync(() -> insertOrUpdate(department));
+    }
+
+    public CompletableFuture<Void> deleteAsync(Department department) {
+        return ServiceExecutor.runAsync(() -> delete(department));
+    }
 }
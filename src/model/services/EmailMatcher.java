@@ -0,0 +1,54 @@
+package model.services;
+
+class EmailMatcher {
+
+    private static final boolean[] LOCAL = new boolean[128];
+    private static final boolean[] DOMAIN = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            LOCAL[c] = DOMAIN[c] = true;
+            LOCAL[Character.toUpperCase(c)] = DOMAIN[Character.toUpperCase(c)] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            LOCAL[c] = DOMAIN[c] = true;
+        }
+        DOMAIN['-'] = true;
+        for (char c : "_!#$%&'*+/=?`{|}~^-".toCharArray()) {
+            LOCAL[c] = true;
+        }
+    }
+
+    // Equivalent to ^[a-zA-Z0-9_!#$%&'*+/=?`{|}~^-]+(?:\.[...]+)*@[a-zA-Z0-9-]+(?:\.[a-zA-Z0-9-]+)*$
+    static boolean matches(String value) {
+        if (value == null) {
+            return false;
+        }
+        int at = scanDotted(value, 0, LOCAL);
+        if (at < 0 || at >= value.length() || value.charAt(at) != '@') {
+            return false;
+        }
+        return scanDotted(value, at + 1, DOMAIN) == value.length();
+    }
+
+    private static int scanDotted(String value, int from, boolean[] allowed) {
+        int position = from;
+        while (true) {
+            int labelStart = position;
+            while (position < value.length() && isAllowed(value.charAt(position), allowed)) {
+                position++;
+            }
+            if (position == labelStart) {
+                return -1;
+            }
+            if (position == value.length() || value.charAt(position) != '.') {
+                return position;
+            }
+            position++;
+        }
+    }
+
+    private static boolean isAllowed(char c, boolean[] allowed) {
+        return c < 128 && allowed[c];
+    }
+}
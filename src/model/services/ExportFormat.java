@@ -0,0 +1,25 @@
+package model.services;
+
+public enum ExportFormat {
+
+    CSV(".csv"),
+    JSON(".json");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static ExportFormat fromFileName(String fileName) {
+        String name = fileName.toLowerCase();
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        return name.endsWith(JSON.extension) ? JSON : CSV;
+    }
+}
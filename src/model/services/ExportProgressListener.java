@@ -0,0 +1,7 @@
+package model.services;
+
+public interface ExportProgressListener {
+
+    void onProgress(long rowsWritten, long totalRows);
+
+}
@@ -0,0 +1,78 @@
+package model.services;
+
+import java.nio.file.Path;
+
+public class ImportReport {
+
+    private final long rowsRead;
+    private final long imported;
+    private final long rejected;
+    private final long elapsedNanos;
+    private final long parseNanos;
+    private final long insertNanos;
+    private final long insertWaitNanos;
+    private final int threads;
+    private final Path rejectFile;
+
+    public ImportReport(long rowsRead, long imported, long rejected, long elapsedNanos, long parseNanos,
+                        long insertNanos, long insertWaitNanos, int threads, Path rejectFile) {
+        this.rowsRead = rowsRead;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.elapsedNanos = elapsedNanos;
+        this.parseNanos = parseNanos;
+        this.insertNanos = insertNanos;
+        this.insertWaitNanos = insertWaitNanos;
+        this.threads = threads;
+        this.rejectFile = rejectFile;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowsRead * 1e9 / elapsedNanos;
+    }
+
+    public long getParseMillis() {
+        return parseNanos / 1_000_000;
+    }
+
+    public long getInsertMillis() {
+        return insertNanos / 1_000_000;
+    }
+
+    public long getInsertWaitMillis() {
+        return insertWaitNanos / 1_000_000;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public Path getRejectFile() {
+        return rejectFile;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows read, %d imported, %d rejected in %d ms (%.0f rows/s); "
+                        + "parse %d ms across %d threads, insert %d ms, insert stage idle %d ms%s",
+                rowsRead, imported, rejected, getElapsedMillis(), getRowsPerSecond(),
+                getParseMillis(), threads, getInsertMillis(), getInsertWaitMillis(),
+                rejected == 0 ? "" : ", rejects written to " + rejectFile);
+    }
+}
@@ -0,0 +1,238 @@
+package model.services;
+
+import db.Db;
+import model.dao.SyncState;
+import model.entities.Department;
+import model.entities.Seller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+class LocalSnapshotStore {
+
+    private static final Logger LOGGER = Logger.getLogger(LocalSnapshotStore.class.getName());
+
+    private static final int MAGIC = 0x534E4150;
+    private static final int FORMAT = 2;
+    private static final String DEPARTMENTS_FILE = "departments.snapshot";
+    private static final String SELLERS_FILE = "sellers.snapshot";
+
+    private static LocalSnapshotStore instance = null;
+
+    private final Path directory;
+    private Snapshot<Department> departments;
+    private Snapshot<Seller> sellers;
+    private boolean departmentsRead = false;
+    private boolean sellersRead = false;
+
+    LocalSnapshotStore(Path directory) {
+        this.directory = directory;
+    }
+
+    static synchronized LocalSnapshotStore getInstance() {
+        Properties props = Db.getProperties();
+        if (instance == null && Boolean.parseBoolean(props.getProperty("snapshot.enabled", "false"))) {
+            instance = new LocalSnapshotStore(Paths.get(props.getProperty("snapshot.directory", "snapshot")));
+        }
+        return instance;
+    }
+
+    synchronized Snapshot<Department> readDepartments() {
+        if (!departmentsRead) {
+            departmentsRead = true;
+            departments = read(DEPARTMENTS_FILE, LocalSnapshotStore::readDepartment);
+        }
+        return departments;
+    }
+
+    synchronized Snapshot<Seller> readSellers() {
+        if (!sellersRead) {
+            sellersRead = true;
+            sellers = read(SELLERS_FILE, new SellerReader());
+        }
+        return sellers;
+    }
+
+    synchronized void writeDepartments(Snapshot<Department> snapshot) {
+        departments = snapshot;
+        departmentsRead = true;
+        write(DEPARTMENTS_FILE, snapshot, (out, department) -> {
+            out.writeInt(department.getId());
+            out.writeInt(department.getVersion() == null ? 0 : department.getVersion());
+            writeString(out, department.getName());
+        });
+    }
+
+    synchronized void writeSellers(Snapshot<Seller> snapshot) {
+        sellers = snapshot;
+        sellersRead = true;
+        write(SELLERS_FILE, snapshot, (out, seller) -> {
+            Department department = seller.getDepartment();
+            out.writeInt(seller.getId());
+            out.writeInt(seller.getVersion() == null ? 0 : seller.getVersion());
+            writeString(out, seller.getName());
+            writeString(out, seller.getEmail());
+            out.writeLong(seller.getBirthDate() == null ? Long.MIN_VALUE : seller.getBirthDate().toEpochDay());
+            out.writeDouble(seller.getBaseSalary() == null ? Double.NaN : seller.getBaseSalary());
+            out.writeInt(department == null || department.getId() == null ? -1 : department.getId());
+            writeString(out, department == null ? null : department.getName());
+        });
+    }
+
+    private <T> Snapshot<T> read(String fileName, RowReader<T> rowReader) {
+        Path path = directory.resolve(fileName);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // a heap copy rather than a mapping: a mapped file stays locked on Windows until the
+            // buffer is collected, and the next write's atomic move over it would fail
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(channel.size()));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            if (buffer.limit() < 4 || !checksumMatches(buffer)) {
+                LOGGER.warning("Ignoring corrupt snapshot " + path);
+                return null;
+            }
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+                LOGGER.info("Ignoring snapshot " + path + " written by another version");
+                return null;
+            }
+            int count = buffer.getInt();
+            long changeSequence = buffer.getLong();
+            int rowCount = buffer.getInt();
+            List<T> rows = new ArrayList<>(rowCount);
+            for (int i = 0; i < rowCount; i++) {
+                rows.add(rowReader.read(buffer));
+            }
+            return new Snapshot<>(rows, new SyncState(count, changeSequence));
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException | ArithmeticException e) {
+            LOGGER.log(Level.WARNING, "Could not read snapshot " + path, e);
+            return null;
+        }
+    }
+
+    private <T> void write(String fileName, Snapshot<T> snapshot, RowWriter<T> rowWriter) {
+        Path path = directory.resolve(fileName);
+        Path temp = directory.resolve(fileName + ".tmp");
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            SyncState syncState = snapshot.getSyncState();
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeInt(syncState.getCount());
+            out.writeLong(syncState.getChangeSequence());
+            out.writeInt(snapshot.getRows().size());
+            for (T row : snapshot.getRows()) {
+                rowWriter.write(out, row);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeInt((int) crc.getValue());
+
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not write snapshot " + path, e);
+        }
+    }
+
+    private static boolean checksumMatches(ByteBuffer buffer) {
+        int end = buffer.limit() - 4;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().limit(end));
+        return (int) crc.getValue() == buffer.getInt(end);
+    }
+
+    private static Department readDepartment(ByteBuffer buffer) {
+        Department department = new Department(buffer.getInt(), null);
+        department.setVersion(buffer.getInt());
+        department.setName(readString(buffer));
+        return department;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private interface RowReader<T> {
+        T read(ByteBuffer buffer);
+    }
+
+    private interface RowWriter<T> {
+        void write(DataOutputStream out, T row) throws IOException;
+    }
+
+    private static class SellerReader implements RowReader<Seller> {
+
+        private final Map<Integer, Department> departments = new HashMap<>();
+
+        @Override
+        public Seller read(ByteBuffer buffer) {
+            Seller seller = new Seller();
+            seller.setId(buffer.getInt());
+            seller.setVersion(buffer.getInt());
+            seller.setName(readString(buffer));
+            seller.setEmail(readString(buffer));
+            long birthDate = buffer.getLong();
+            seller.setBirthDate(birthDate == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(birthDate));
+            double baseSalary = buffer.getDouble();
+            seller.setBaseSalary(Double.isNaN(baseSalary) ? null : baseSalary);
+            int departmentId = buffer.getInt();
+            String departmentName = readString(buffer);
+            if (departmentId >= 0) {
+                seller.setDepartment(departments.computeIfAbsent(departmentId,
+                        id -> new Department(id, departmentName)));
+            }
+            return seller;
+        }
+    }
+}
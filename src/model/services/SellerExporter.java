@@ -0,0 +1,241 @@
+package model.services;
+
+import db.DBException;
+import model.dao.SellerDao;
+import model.entities.Department;
+import model.entities.Seller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+public class SellerExporter {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private static final long PROGRESS_INTERVAL = 10_000;
+
+    private static final String CSV_HEADER = "Id,Name,Email,BirthDate,BaseSalary,DepartmentId,DepartmentName";
+
+    private final SellerDao sellerDao;
+
+    public SellerExporter(SellerDao sellerDao) {
+        this.sellerDao = sellerDao;
+    }
+
+    public long export(Path target, ExportFormat format, boolean gzip, ExportProgressListener listener) {
+        long total = sellerDao.count();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        long[] rows = {0};
+        try {
+            try (ChannelTextWriter writer = open(temp, gzip)) {
+                RowWriter rowWriter = format == ExportFormat.JSON ? new JsonRowWriter(writer) : new CsvRowWriter(writer);
+                rowWriter.begin();
+                sellerDao.streamAll(seller -> {
+                    try {
+                        rowWriter.write(seller, rows[0]);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    if (++rows[0] % PROGRESS_INTERVAL == 0 && listener != null) {
+                        listener.onProgress(rows[0], Math.max(total, rows[0]));
+                    }
+                });
+                rowWriter.end();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | UncheckedIOException e) {
+            deleteQuietly(temp);
+            throw new DBException("Could not export sellers to " + target + ": " + e.getMessage());
+        } catch (RuntimeException e) {
+            deleteQuietly(temp);
+            throw e;
+        }
+        if (listener != null) {
+            listener.onProgress(rows[0], rows[0]);
+        }
+        return rows[0];
+    }
+
+    private static ChannelTextWriter open(Path path, boolean gzip) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        if (!gzip) {
+            return new ChannelTextWriter(channel, ByteBuffer.allocateDirect(BUFFER_SIZE));
+        }
+        WritableByteChannel compressed = Channels.newChannel(
+                new GZIPOutputStream(Channels.newOutputStream(channel), GZIP_BUFFER_SIZE));
+        return new ChannelTextWriter(compressed, ByteBuffer.allocate(BUFFER_SIZE));
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // the temp file is overwritten by the next export
+        }
+    }
+
+    private interface RowWriter {
+        void begin() throws IOException;
+        void write(Seller seller, long index) throws IOException;
+        void end() throws IOException;
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+
+        private final ChannelTextWriter writer;
+
+        CsvRowWriter(ChannelTextWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void begin() throws IOException {
+            writer.write(CSV_HEADER).write("\r\n");
+        }
+
+        @Override
+        public void write(Seller seller, long index) throws IOException {
+            Department department = seller.getDepartment();
+            writer.writeLong(seller.getId()).write(',');
+            writeField(seller.getName());
+            writer.write(',');
+            writeField(seller.getEmail());
+            writer.write(',');
+            if (seller.getBirthDate() != null) {
+                writer.writeDate(seller.getBirthDate());
+            }
+            writer.write(',');
+            if (seller.getBaseSalary() != null) {
+                writer.writeDecimal(seller.getBaseSalary());
+            }
+            writer.write(',');
+            if (department != null) {
+                writer.writeLong(department.getId()).write(',');
+                writeField(department.getName());
+            } else {
+                writer.write(',');
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void end() {
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (!needsQuotes(value)) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            int start = 0;
+            for (int i = value.indexOf('"'); i >= 0; i = value.indexOf('"', start)) {
+                writer.write(value.substring(start, i + 1)).write('"');
+                start = i + 1;
+            }
+            writer.write(start == 0 ? value : value.substring(start)).write('"');
+        }
+
+        private static boolean needsQuotes(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class JsonRowWriter implements RowWriter {
+
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+        private final ChannelTextWriter writer;
+
+        JsonRowWriter(ChannelTextWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void begin() throws IOException {
+            writer.write('[');
+        }
+
+        @Override
+        public void write(Seller seller, long index) throws IOException {
+            Department department = seller.getDepartment();
+            writer.write(index == 0 ? "\n{\"id\":" : ",\n{\"id\":").writeLong(seller.getId());
+            writer.write(",\"name\":");
+            writeString(seller.getName());
+            writer.write(",\"email\":");
+            writeString(seller.getEmail());
+            writer.write(",\"birthDate\":");
+            if (seller.getBirthDate() == null) {
+                writer.write("null");
+            } else {
+                writer.write('"').writeDate(seller.getBirthDate()).write('"');
+            }
+            writer.write(",\"baseSalary\":");
+            if (seller.getBaseSalary() == null || seller.getBaseSalary().isNaN() || seller.getBaseSalary().isInfinite()) {
+                writer.write("null");
+            } else {
+                writer.writeDecimal(seller.getBaseSalary());
+            }
+            writer.write(",\"department\":");
+            if (department == null) {
+                writer.write("null");
+            } else {
+                writer.write("{\"id\":").writeLong(department.getId()).write(",\"name\":");
+                writeString(department.getName());
+                writer.write('}');
+            }
+            writer.write('}');
+        }
+
+        @Override
+        public void end() throws IOException {
+            writer.write("\n]\n");
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                writer.write("null");
+                return;
+            }
+            writer.write('"');
+            int start = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\' || c < 0x20) {
+                    if (i > start) {
+                        writer.write(value.substring(start, i));
+                    }
+                    writer.write('\\');
+                    if (c == '"' || c == '\\') {
+                        writer.write(c);
+                    } else {
+                        writer.write("u00").write(HEX[c >> 4]).write(HEX[c & 0xF]);
+                    }
+                    start = i + 1;
+                }
+            }
+            writer.write(start == 0 ? value : value.substring(start)).write('"');
+        }
+    }
+}
@@ -0,0 +1,565 @@
+package model.services;
+
+import db.DBException;
+import model.dao.BatchResult;
+import model.dao.SellerDao;
+import model.entities.Department;
+import model.entities.Seller;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+public class SellerImporter {
+
+    private static final Logger LOGGER = Logger.getLogger(SellerImporter.class.getName());
+
+    private static final DateTimeFormatter FORM_DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private static final int REJECT_BUFFER_SIZE = 64 * 1024;
+
+    private static final int REJECTED_PREFIX_BYTES = 1024;
+
+    private static final ParsedChunk END = new ParsedChunk();
+
+    private final SellerDao sellerDao;
+    private final Map<String, Department> departmentsByName = new HashMap<>();
+    private final Map<Integer, Department> departmentsById = new HashMap<>();
+    private final int threads;
+    private final int chunkBytes;
+    private final int maxRecordBytes;
+    private final int maxChunksInFlight;
+    private final int batchSize;
+
+    public SellerImporter(SellerDao sellerDao, List<Department> departments, int threads, int chunkBytes,
+                          int maxRecordBytes, int maxChunksInFlight, int batchSize) {
+        this.sellerDao = sellerDao;
+        for (Department department : departments) {
+            departmentsById.put(department.getId(), department);
+            if (department.getName() != null) {
+                departmentsByName.put(department.getName().trim().toLowerCase(Locale.ROOT), department);
+            }
+        }
+        this.threads = threads;
+        this.chunkBytes = chunkBytes;
+        this.maxRecordBytes = maxRecordBytes;
+        this.maxChunksInFlight = maxChunksInFlight;
+        this.batchSize = batchSize;
+    }
+
+    public ImportReport importFile(Path source, Path rejectFile) {
+        long started = System.nanoTime();
+        Run run = new Run(source, maxChunksInFlight);
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService parsers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "seller-import-parser-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Thread reader = new Thread(() -> read(run, parsers), "seller-import-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        long rowsRead = 0;
+        long imported = 0;
+        long insertNanos = 0;
+        long insertWaitNanos = 0;
+        Batch batch = new Batch();
+        try (RejectWriter rejects = new RejectWriter(rejectFile)) {
+            while (true) {
+                long waitStarted = System.nanoTime();
+                ParsedChunk chunk = run.parsed.take();
+                insertWaitNanos += System.nanoTime() - waitStarted;
+                if (chunk == END) {
+                    break;
+                }
+                run.chunksInFlight.release();
+                if (run.failure.get() != null) {
+                    continue;
+                }
+                try {
+                    rowsRead += chunk.rows;
+                    for (Reject reject : chunk.rejects) {
+                        rejects.write(run.header, reject);
+                    }
+                    for (int i = 0; i < chunk.sellers.size(); i++) {
+                        batch.add(chunk.sellers.get(i), chunk.lines.get(i), chunk.rawRecords.get(i));
+                        if (batch.sellers.size() >= batchSize) {
+                            long insertStarted = System.nanoTime();
+                            imported += insert(batch, run.header, rejects);
+                            insertNanos += System.nanoTime() - insertStarted;
+                        }
+                    }
+                } catch (IOException | RuntimeException e) {
+                    run.failure.compareAndSet(null, e);
+                }
+            }
+            if (run.failure.get() == null && !batch.sellers.isEmpty()) {
+                long insertStarted = System.nanoTime();
+                imported += insert(batch, run.header, rejects);
+                insertNanos += System.nanoTime() - insertStarted;
+            }
+            Throwable failure = run.failure.get();
+            if (failure != null) {
+                throw failure instanceof RuntimeException ? (RuntimeException) failure
+                        : new DBException("Could not import sellers from " + source + ": " + failure.getMessage());
+            }
+            ImportReport report = new ImportReport(rowsRead, imported, rejects.count, System.nanoTime() - started,
+                    run.parseNanos.sum(), insertNanos, insertWaitNanos, threads, rejects.count == 0 ? null : rejectFile);
+            LOGGER.info("Seller import of " + source + ": " + report);
+            return report;
+        } catch (IOException e) {
+            throw new DBException("Could not write rejected sellers to " + rejectFile + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.failure.compareAndSet(null, e);
+            throw new DBException("Seller import of " + source + " was interrupted");
+        } finally {
+            parsers.shutdownNow();
+            reader.interrupt();
+        }
+    }
+
+    private void read(Run run, ExecutorService parsers) {
+        try (ReadableByteChannel channel = open(run.source)) {
+            ByteBuffer buffer = ByteBuffer.allocate(chunkBytes);
+            int scanned = 0;
+            int boundary = 0;
+            int linesToBoundary = 0;
+            int linesScanned = 0;
+            int nextLine = 1;
+            // the same quoting rule as CsvRecordReader: a quote only opens a field that starts with it
+            boolean fieldStart = true;
+            boolean inQuotes = false;
+            boolean quoteInQuotes = false;
+            boolean skipping = false;
+            boolean eof = false;
+            while (!eof && run.failure.get() == null) {
+                eof = channel.read(buffer) < 0;
+                byte[] bytes = buffer.array();
+                for (; scanned < buffer.position(); scanned++) {
+                    byte b = bytes[scanned];
+                    if (skipping) {
+                        if (b == '\n') {
+                            skipping = false;
+                            nextLine++;
+                            compact(buffer, scanned + 1);
+                            scanned = -1;
+                        }
+                        continue;
+                    }
+                    if (quoteInQuotes) {
+                        quoteInQuotes = false;
+                        if (b == '"') {
+                            continue;
+                        }
+                        inQuotes = false;
+                    }
+                    if (inQuotes) {
+                        if (b == '"') {
+                            quoteInQuotes = true;
+                        } else if (b == '\n') {
+                            linesScanned++;
+                        }
+                    } else if (b == '"' && fieldStart) {
+                        inQuotes = true;
+                        fieldStart = false;
+                    } else if (b == '\n') {
+                        linesScanned++;
+                        fieldStart = true;
+                        boundary = scanned + 1;
+                        linesToBoundary = linesScanned;
+                        if (run.header == null) {
+                            run.header = readHeader(bytes, boundary);
+                            nextLine += linesToBoundary;
+                            compact(buffer, boundary);
+                            scanned = -1;
+                            boundary = 0;
+                            linesScanned = 0;
+                            linesToBoundary = 0;
+                        }
+                    } else {
+                        fieldStart = b == ',';
+                    }
+                }
+                if (eof && run.header == null) {
+                    if (buffer.position() == 0) {
+                        throw new IOException("The file has no header row");
+                    }
+                    run.header = readHeader(bytes, buffer.position());
+                    break;
+                }
+                if (eof && skipping) {
+                    break;
+                }
+                if (eof && buffer.position() > 0) {
+                    boundary = buffer.position();
+                    linesToBoundary = linesScanned;
+                }
+                if (run.header == null || boundary == 0) {
+                    if (buffer.hasRemaining()) {
+                        continue;
+                    }
+                    if (buffer.capacity() < maxRecordBytes) {
+                        buffer = grow(buffer);
+                        continue;
+                    }
+                    if (run.header == null) {
+                        throw new IOException("The header row is longer than " + maxRecordBytes + " bytes");
+                    }
+                    if (!skipping) {
+                        // usually an unterminated quote; resume at the next line so the rest of the file still loads
+                        rejectOversized(run, bytes, nextLine);
+                        nextLine += linesScanned;
+                        skipping = true;
+                        fieldStart = true;
+                        inQuotes = false;
+                        quoteInQuotes = false;
+                    }
+                    buffer.clear();
+                    scanned = 0;
+                    linesScanned = 0;
+                    continue;
+                }
+                byte[] chunk = Arrays.copyOf(bytes, boundary);
+                int firstLine = nextLine;
+                run.chunksInFlight.acquire();
+                parsers.execute(() -> parse(run, chunk, firstLine));
+                nextLine += linesToBoundary;
+                compact(buffer, boundary);
+                scanned -= boundary;
+                linesScanned -= linesToBoundary;
+                boundary = 0;
+                linesToBoundary = 0;
+            }
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            run.failure.compareAndSet(null, e);
+        } finally {
+            parsers.shutdown();
+            try {
+                parsers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                run.failure.compareAndSet(null, e);
+            }
+            run.parsed.add(END);
+        }
+    }
+
+    private void rejectOversized(Run run, byte[] bytes, int line) throws InterruptedException {
+        int end = 0;
+        while (end < REJECTED_PREFIX_BYTES && bytes[end] != '\n') {
+            end++;
+        }
+        ParsedChunk chunk = new ParsedChunk();
+        chunk.rows++;
+        chunk.rejects.add(new Reject(line, new String(bytes, 0, end, StandardCharsets.UTF_8),
+                "Record is longer than " + maxRecordBytes + " bytes"));
+        run.chunksInFlight.acquire();
+        run.parsed.add(chunk);
+    }
+
+    private void parse(Run run, byte[] bytes, int firstLine) {
+        long started = System.nanoTime();
+        ParsedChunk chunk = new ParsedChunk();
+        try {
+            CsvRecordReader records = new CsvRecordReader(new String(bytes, StandardCharsets.UTF_8), firstLine);
+            while (records.next()) {
+                if (records.isBlank()) {
+                    continue;
+                }
+                chunk.rows++;
+                try {
+                    Seller seller = toSeller(run.header, records.getFields());
+                    chunk.sellers.add(seller);
+                    chunk.lines.add(records.getLine());
+                    chunk.rawRecords.add(records.getRawRecord());
+                } catch (RuntimeException e) {
+                    chunk.rejects.add(new Reject(records.getLine(), records.getRawRecord(), e.getMessage()));
+                }
+            }
+        } catch (RuntimeException e) {
+            run.failure.compareAndSet(null, e);
+        }
+        run.parseNanos.add(System.nanoTime() - started);
+        run.parsed.add(chunk);
+    }
+
+    private Seller toSeller(Header header, List<String> fields) {
+        if (fields.size() < header.columns) {
+            throw new IllegalArgumentException("Expected " + header.columns + " fields but found " + fields.size());
+        }
+        Seller seller = new Seller();
+        seller.setName(fields.get(header.name));
+        seller.setEmail(fields.get(header.email).trim());
+        seller.setBirthDate(parseDate(fields.get(header.birthDate).trim()));
+        seller.setBaseSalary(parseDouble(fields.get(header.baseSalary).trim()));
+        Map<String, String> errors = Validators.SELLER.errors(seller);
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(String.join("; ", describe(errors)));
+        }
+        seller.setDepartment(resolveDepartment(header, fields));
+        return seller;
+    }
+
+    private Department resolveDepartment(Header header, List<String> fields) {
+        if (header.departmentName >= 0 && !fields.get(header.departmentName).isBlank()) {
+            String name = fields.get(header.departmentName);
+            Department department = departmentsByName.get(name.trim().toLowerCase(Locale.ROOT));
+            if (department == null) {
+                throw new IllegalArgumentException("Unknown department '" + name + "'");
+            }
+            return department;
+        }
+        if (header.departmentId >= 0 && !fields.get(header.departmentId).isBlank()) {
+            String id = fields.get(header.departmentId).trim();
+            Department department = null;
+            try {
+                department = departmentsById.get(Integer.parseInt(id));
+            } catch (NumberFormatException e) {
+                // reported as an unknown department below
+            }
+            if (department == null) {
+                throw new IllegalArgumentException("Unknown department id " + id);
+            }
+            return department;
+        }
+        throw new IllegalArgumentException("Department can't be empty");
+    }
+
+    private long insert(Batch batch, Header header, RejectWriter rejects) throws IOException {
+        BatchResult<Seller> result = sellerDao.insertAll(batch.sellers);
+        long imported = result.getSucceeded();
+        if (result.hasFailures()) {
+            Map<Seller, Integer> indexes = new IdentityHashMap<>();
+            for (int i = 0; i < batch.sellers.size(); i++) {
+                indexes.put(batch.sellers.get(i), i);
+            }
+            for (BatchResult.Failure<Seller> failure : result.getFailures()) {
+                for (Seller seller : failure.getEntities()) {
+                    try {
+                        sellerDao.insert(seller);
+                        imported++;
+                    } catch (DBException e) {
+                        int index = indexes.get(seller);
+                        rejects.write(header, new Reject(batch.lines.get(index), batch.rawRecords.get(index),
+                                e.getMessage()));
+                    }
+                }
+            }
+        }
+        batch.clear();
+        return imported;
+    }
+
+    private static Header readHeader(byte[] bytes, int end) throws IOException {
+        String line = new String(bytes, 0, end, StandardCharsets.UTF_8);
+        if (line.startsWith("\uFEFF")) {
+            line = line.substring(1);
+        }
+        CsvRecordReader record = new CsvRecordReader(line, 1);
+        record.next();
+        return new Header(record.getRawRecord(), record.getFields());
+    }
+
+    private static ReadableByteChannel open(Path source) throws IOException {
+        if (source.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz")) {
+            return Channels.newChannel(new GZIPInputStream(Files.newInputStream(source), GZIP_BUFFER_SIZE));
+        }
+        return FileChannel.open(source, StandardOpenOption.READ);
+    }
+
+    private static void compact(ByteBuffer buffer, int consumed) {
+        buffer.flip();
+        buffer.position(consumed);
+        buffer.compact();
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer) {
+        ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2);
+        buffer.flip();
+        grown.put(buffer);
+        return grown;
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        try {
+            return value.indexOf('/') >= 0 ? LocalDate.parse(value, FORM_DATE) : LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid birth date '" + value + "'");
+        }
+    }
+
+    private static Double parseDouble(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static List<String> describe(Map<String, String> errors) {
+        List<String> messages = new ArrayList<>(errors.size());
+        for (Map.Entry<String, String> error : errors.entrySet()) {
+            messages.add(error.getKey() + ": " + error.getValue());
+        }
+        messages.sort(null);
+        return messages;
+    }
+
+    private static class Run {
+
+        private final Path source;
+        private final BlockingQueue<ParsedChunk> parsed = new LinkedBlockingQueue<>();
+        private final Semaphore chunksInFlight;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final LongAdder parseNanos = new LongAdder();
+        private volatile Header header;
+
+        Run(Path source, int maxChunksInFlight) {
+            this.source = source;
+            this.chunksInFlight = new Semaphore(maxChunksInFlight);
+        }
+    }
+
+    private static class Header {
+
+        private final String line;
+        private final int columns;
+        private final int name;
+        private final int email;
+        private final int birthDate;
+        private final int baseSalary;
+        private final int departmentId;
+        private final int departmentName;
+
+        Header(String line, List<String> fields) throws IOException {
+            this.line = line;
+            this.columns = fields.size();
+            List<String> names = new ArrayList<>(fields.size());
+            for (String field : fields) {
+                names.add(field.trim().toLowerCase(Locale.ROOT));
+            }
+            this.name = required(names, "name");
+            this.email = required(names, "email");
+            this.birthDate = required(names, "birthdate");
+            this.baseSalary = required(names, "basesalary");
+            this.departmentId = names.indexOf("departmentid");
+            this.departmentName = names.indexOf("departmentname");
+            if (departmentId < 0 && departmentName < 0) {
+                throw new IOException("The header needs a DepartmentName or DepartmentId column");
+            }
+        }
+
+        private static int required(List<String> names, String column) throws IOException {
+            int index = names.indexOf(column);
+            if (index < 0) {
+                throw new IOException("The header has no " + column + " column");
+            }
+            return index;
+        }
+    }
+
+    private static class ParsedChunk {
+
+        private final List<Seller> sellers = new ArrayList<>();
+        private final List<Integer> lines = new ArrayList<>();
+        private final List<String> rawRecords = new ArrayList<>();
+        private final List<Reject> rejects = new ArrayList<>();
+        private int rows;
+    }
+
+    private static class Batch {
+
+        private final List<Seller> sellers = new ArrayList<>();
+        private final List<Integer> lines = new ArrayList<>();
+        private final List<String> rawRecords = new ArrayList<>();
+
+        void add(Seller seller, int line, String rawRecord) {
+            sellers.add(seller);
+            lines.add(line);
+            rawRecords.add(rawRecord);
+        }
+
+        void clear() {
+            sellers.clear();
+            lines.clear();
+            rawRecords.clear();
+        }
+    }
+
+    private static class Reject {
+
+        private final int line;
+        private final String rawRecord;
+        private final String message;
+
+        Reject(int line, String rawRecord, String message) {
+            this.line = line;
+            this.rawRecord = rawRecord;
+            this.message = message;
+        }
+    }
+
+    private static class RejectWriter implements AutoCloseable {
+
+        private final Path path;
+        private ChannelTextWriter writer;
+        private long count;
+
+        RejectWriter(Path path) {
+            this.path = path;
+        }
+
+        void write(Header header, Reject reject) throws IOException {
+            if (writer == null) {
+                writer = new ChannelTextWriter(FileChannel.open(path, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING),
+                        ByteBuffer.allocate(REJECT_BUFFER_SIZE));
+                writer.write("Line,Error,").write(header.line).write("\r\n");
+            }
+            writer.writeLong(reject.line).write(",\"");
+            writer.write(reject.message == null ? "" : reject.message.replace("\"", "\"\""));
+            writer.write("\",").write(reject.rawRecord).write("\r\n");
+            count++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+}
@@ -1,19 +1,172 @@
 package model.services;
 
+import db.Db;
+import model.dao.BatchResult;
+import model.dao.ChangeLogDao;
+import model.dao.ChangeRecord;
 import model.dao.DAOFactory;
+import model.dao.DepartmentPayrollDao;
+import model.dao.SellerCursor;
 import model.dao.SellerDao;
+import model.dao.SellerQuery;
+import model.dao.SyncState;
+import model.entities.DepartmentPayroll;
 import model.entities.Seller;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
 import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class SellerService {
 
+    private static SellerWriteBehindQueue writeBehindQueue = null;
+
     private SellerDao sellerDao = DAOFactory.createSellerDAO();
 
+    private DepartmentPayrollDao payrollDao = DAOFactory.createDepartmentPayrollDAO();
+
+    private ChangeLogDao changeLogDao = DAOFactory.createChangeLogDAO();
+
+    public static synchronized SellerWriteBehindQueue getWriteBehindQueue() {
+        Properties props = Db.getProperties();
+        if (writeBehindQueue == null && Boolean.parseBoolean(props.getProperty("writeBehind.enabled", "false"))) {
+            String journal = props.getProperty("writeBehind.journal", "");
+            writeBehindQueue = new SellerWriteBehindQueue(DAOFactory.createSellerDAO(), DAOFactory.createAppliedWriteDAO(),
+                    Integer.parseInt(props.getProperty("writeBehind.batchSize", "500")),
+                    Long.parseLong(props.getProperty("writeBehind.flushIntervalMillis", "1000")),
+                    journal.isBlank() ? null : Paths.get(journal),
+                    Boolean.parseBoolean(props.getProperty("writeBehind.journalSync", "true")));
+        }
+        return writeBehindQueue;
+    }
+
+    public static synchronized void closeWriteBehindQueue() {
+        if (writeBehindQueue != null) {
+            writeBehindQueue.close();
+            writeBehindQueue = null;
+        }
+    }
+
+    public boolean isWriteBehind() {
+        return getWriteBehindQueue() != null;
+    }
+
+    public void addWriteBehindListener(WriteBehindListener<Seller> listener) {
+        SellerWriteBehindQueue queue = getWriteBehindQueue();
+        if (queue != null) {
+            queue.addListener(listener);
+        }
+    }
+
+    public void addChangeFeedListener(ChangeFeedListener<Seller> listener) {
+        ChangeFeed changeFeed = ChangeFeed.getInstance();
+        if (changeFeed != null) {
+            changeFeed.addSellerListener(listener);
+        }
+    }
+
+    public Snapshot<Seller> getSnapshot() {
+        LocalSnapshotStore store = LocalSnapshotStore.getInstance();
+        return store == null ? null : store.readSellers();
+    }
+
+    public Snapshot<Seller> syncSnapshot(Snapshot<Seller> snapshot, int pageSize) {
+        ChangeFeed changeFeed = ChangeFeed.getInstance();
+        long watermark = changeFeed == null ? -1 : changeFeed.getWatermark();
+        SyncState syncState = snapshot == null ? null : snapshot.getSyncState();
+        Integer count = null;
+        if (syncState != null && watermark >= 0 && snapshot.getRows().size() == Math.min(pageSize, syncState.getCount())) {
+            if (syncState.getChangeSequence() == watermark) {
+                return snapshot;
+            }
+            ChangeWindow changes = ChangeWindow.read(changeLogDao, syncState.getChangeSequence(), watermark);
+            if (changes != null) {
+                count = syncState.getCount() + changes.countDelta(ChangeRecord.SELLER);
+            }
+            if (changes != null && changes.isEmpty()) {
+                return writeSellerSnapshot(new Snapshot<>(snapshot.getRows(), new SyncState(count, watermark)));
+            }
+        }
+        if (count == null) {
+            count = count();
+        }
+        return writeSellerSnapshot(new Snapshot<>(findPage(null, pageSize), new SyncState(count, watermark)));
+    }
+
+    public Seller findById(int id) {
+        return sellerDao.findById(id);
+    }
+
     public List<Seller> findAll() {
         return sellerDao.findAll();
     }
 
+    public void streamAll(Consumer<Seller> consumer) {
+        sellerDao.streamAll(consumer);
+    }
+
+    public List<Seller> findPage(SellerCursor after, int pageSize) {
+        return sellerDao.findPage(after, pageSize);
+    }
+
+    public List<Seller> findPage(SellerQuery query, SellerCursor after, int pageSize) {
+        return sellerDao.findPage(query, after, pageSize);
+    }
+
+    public List<Seller> findPageAt(SellerQuery query, int offset, int pageSize) {
+        return sellerDao.findPageAt(query, offset, pageSize);
+    }
+
+    public int count() {
+        return sellerDao.count();
+    }
+
+    public int countBefore(SellerQuery query, Seller seller) {
+        return sellerDao.countBefore(query, SellerCursor.of(seller));
+    }
+
+    public int count(SellerQuery query) {
+        return sellerDao.count(query);
+    }
+
+    public List<DepartmentPayroll> findPayrollByDepartment() {
+        return payrollDao.aggregateFromSellers();
+    }
+
+    public List<DepartmentPayroll> findPayrollSummary() {
+        return payrollDao.findSummary();
+    }
+
+    public void rebuildPayrollSummary() {
+        payrollDao.rebuildSummary();
+    }
+
+    public long export(Path target, ExportFormat format, boolean gzip, ExportProgressListener listener) {
+        SellerWriteBehindQueue queue = getWriteBehindQueue();
+        if (queue != null) {
+            queue.flush();
+        }
+        return new SellerExporter(sellerDao).export(target, format, gzip, listener);
+    }
+
+    public ImportReport importFile(Path source, Path rejectFile) {
+        Properties props = Db.getProperties();
+        int threads = Integer.parseInt(props.getProperty("import.threads", "0"));
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        SellerImporter importer = new SellerImporter(sellerDao, new DepartmentService().findAll(), threads,
+                Integer.parseInt(props.getProperty("import.chunkBytes", "1048576")),
+                Integer.parseInt(props.getProperty("import.maxRecordBytes", "16777216")),
+                Integer.parseInt(props.getProperty("import.maxChunksInFlight", String.valueOf(threads * 2))),
+                Integer.parseInt(props.getProperty("import.batchSize", "5000")));
+        return importer.importFile(source, rejectFile);
+    }
+
     public void insertOrUpdate(Seller seller) {
         if (seller.getId() == null) {
             sellerDao.insert(seller);
@@ -22,8 +175,107 @@ public class SellerService {
         }
     }
 
+    public void insertOrUpdateAll(Collection<Seller> sellers) {
+        Db.inTransaction(conn -> {
+            for (Seller seller : sellers) {
+                insertOrUpdate(seller);
+            }
+            return null;
+        });
+    }
+
     public void delete(Seller seller) {
+        SellerWriteBehindQueue queue = getWriteBehindQueue();
+        if (queue != null) {
+            queue.discard(seller.getId());
+        }
         sellerDao.deleteById(seller.getId());
     }
 
+    public void deleteAll(Collection<Seller> sellers) {
+        Db.inTransaction(conn -> {
+            for (Seller seller : sellers) {
+                delete(seller);
+            }
+            return null;
+        });
+    }
+
+    public BatchResult<Seller> insertAll(Collection<Seller> sellers) {
+        return sellerDao.insertAll(sellers);
+    }
+
+    public BatchResult<Seller> updateAll(Collection<Seller> sellers) {
+        return sellerDao.updateAll(sellers);
+    }
+
+    public CompletableFuture<Seller> findByIdAsync(int id) {
+        return ServiceExecutor.supplyAsync(() -> findById(id));
+    }
+
+    public CompletableFuture<Snapshot<Seller>> syncSnapshotAsync(Snapshot<Seller> snapshot, int pageSize) {
+        return ServiceExecutor.supplyAsync(() -> syncSnapshot(snapshot, pageSize));
+    }
+
+    public CompletableFuture<List<Seller>> findPageAsync(SellerCursor after, int pageSize) {
+        return ServiceExecutor.supplyAsync(() -> findPage(after, pageSize));
+    }
+
+    public CompletableFuture<Integer> countAsync() {
+        return ServiceExecutor.supplyAsync(this::count);
+    }
+
+    public CompletableFuture<List<Seller>> findPageAsync(SellerQuery query, SellerCursor after, int pageSize) {
+        return ServiceExecutor.supplyAsync(() -> findPage(query, after, pageSize));
+    }
+
+    public CompletableFuture<List<Seller>> findPageAtAsync(SellerQuery query, int offset, int pageSize) {
+        return ServiceExecutor.supplyAsync(() -> findPageAt(query, offset, pageSize));
+    }
+
+    public CompletableFuture<Integer> countBeforeAsync(SellerQuery query, Seller seller) {
+        return ServiceExecutor.supplyAsync(() -> countBefore(query, seller));
+    }
+
+    public CompletableFuture<Integer> countAsync(SellerQuery query) {
+        return ServiceExecutor.supplyAsync(() -> count(query));
+    }
+
+    public CompletableFuture<List<DepartmentPayroll>> findPayrollSummaryAsync() {
+        return ServiceExecutor.supplyAsync(this::findPayrollSummary);
+    }
+
+    public CompletableFuture<Long> exportAsync(Path target, ExportFormat format, boolean gzip,
+                                               ExportProgressListener listener) {
+        return ServiceExecutor.supplyBulkAsync(() -> export(target, format, gzip, listener));
+    }
+
+    public CompletableFuture<ImportReport> importFileAsync(Path source, Path rejectFile) {
+        return ServiceExecutor.supplyBulkAsync(() -> importFile(source, rejectFile));
+    }
+
+    public CompletableFuture<Void> insertOrUpdateAsync(Seller seller) {
+        SellerWriteBehindQueue queue = getWriteBehindQueue();
+        if (queue != null) {
+            try {
+                queue.enqueue(seller);
+                return CompletableFuture.completedFuture(null);
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return ServiceExecutor.runAsync(() -> insertOrUpdate(seller));
+    }
+
+    public CompletableFuture<Void> deleteAsync(Seller seller) {
+        return ServiceExecutor.runAsync(() -> delete(seller));
+    }
+
+    private Snapshot<Seller> writeSellerSnapshot(Snapshot<Seller> fresh) {
+        LocalSnapshotStore store = LocalSnapshotStore.getInstance();
+        if (store != null) {
+            store.writeSellers(fresh);
+        }
+        return fresh;
+    }
 }
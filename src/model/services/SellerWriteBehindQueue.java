@@ -0,0 +1,361 @@
+package model.services;
+
+import db.DBException;
+import db.Db;
+import model.dao.AppliedWriteDao;
+import model.dao.BatchResult;
+import model.dao.SellerDao;
+import model.entities.Seller;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class SellerWriteBehindQueue {
+
+    private static final Logger LOGGER = Logger.getLogger(SellerWriteBehindQueue.class.getName());
+
+    private final SellerDao sellerDao;
+    private final AppliedWriteDao appliedWriteDao;
+    private final int batchSize;
+    private final WriteBehindJournal journal;
+    private final ScheduledExecutorService flusher;
+    private final List<WeakReference<WriteBehindListener<Seller>>> listeners = new CopyOnWriteArrayList<>();
+    private final Object flushLock = new Object();
+
+    private final Map<Object, PendingWrite> pending = new LinkedHashMap<>();
+    private long nextSequence = 1;
+    private int batchesInFlight = 0;
+    private boolean closed = false;
+
+    public SellerWriteBehindQueue(SellerDao sellerDao, AppliedWriteDao appliedWriteDao, int batchSize,
+                                  long flushIntervalMillis, Path journalPath, boolean journalSync) {
+        this.sellerDao = sellerDao;
+        this.appliedWriteDao = appliedWriteDao;
+        this.batchSize = batchSize;
+        this.journal = journalPath == null ? null : new WriteBehindJournal(journalPath, journalSync);
+        if (journal != null) {
+            replayJournal();
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "seller-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushPending, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public void enqueue(Seller seller) {
+        Seller copy = copyOf(seller);
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Write-behind queue is closed");
+            }
+            long sequence = nextSequence++;
+            String key = UUID.randomUUID().toString();
+            if (journal != null) {
+                try {
+                    journal.appendWrite(sequence, key, copy);
+                } catch (IOException e) {
+                    throw new DBException("Could not journal seller write: " + e.getMessage());
+                }
+            }
+            add(sequence, key, copy);
+        }
+    }
+
+    public void discard(int sellerId) {
+        PendingWrite discarded;
+        synchronized (this) {
+            discarded = pending.remove(sellerId);
+        }
+        if (discarded != null) {
+            markDone(List.of(discarded), false);
+        }
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public void addListener(WriteBehindListener<Seller> listener) {
+        listeners.removeIf(reference -> reference.get() == null || reference.get() == listener);
+        listeners.add(new WeakReference<>(listener));
+    }
+
+    public void flush() {
+        synchronized (flushLock) {
+            while (flushBatch()) {
+                // keep going until the queue is drained or a flush fails
+            }
+        }
+    }
+
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private void flushPending() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Write-behind flush failed", e);
+        }
+    }
+
+    private boolean flushBatch() {
+        List<PendingWrite> batch = new ArrayList<>();
+        synchronized (this) {
+            Iterator<PendingWrite> iterator = pending.values().iterator();
+            while (iterator.hasNext() && batch.size() < batchSize) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+            if (batch.isEmpty()) {
+                return false;
+            }
+            batchesInFlight++;
+        }
+        List<Seller> inserts = new ArrayList<>();
+        List<Seller> updates = new ArrayList<>();
+        for (PendingWrite write : batch) {
+            (write.insert ? inserts : updates).add(write.seller);
+        }
+        List<BatchResult<Seller>> results;
+        try {
+            results = Db.inTransaction(conn -> {
+                List<BatchResult<Seller>> written = List.of(sellerDao.insertAll(inserts), sellerDao.updateAll(updates));
+                if (journal != null) {
+                    appliedWriteDao.record(keysOf(batch));
+                }
+                return written;
+            });
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Write-behind flush of " + batch.size() + " sellers failed, will retry", e);
+            requeue(batch);
+            return false;
+        }
+        Map<Seller, String> failed = new IdentityHashMap<>();
+        for (BatchResult<Seller> result : results) {
+            for (BatchResult.Failure<Seller> failure : result.getFailures()) {
+                for (Seller seller : failure.getEntities()) {
+                    failed.put(seller, failure.getMessage());
+                }
+            }
+            for (Seller conflict : result.getConflicts()) {
+                failed.put(conflict, "Seller " + conflict.getId()
+                        + " was changed or deleted by another user before the queued save was written");
+            }
+        }
+        synchronized (this) {
+            for (PendingWrite write : batch) {
+                PendingWrite next = write.insert ? null : pending.get(write.seller.getId());
+                if (next != null && !failed.containsKey(write.seller)
+                        && Objects.equals(next.seller.getVersion(), write.baseVersion)) {
+                    next.seller.setVersion(write.seller.getVersion());
+                }
+            }
+        }
+        markDone(batch, true);
+        forgetKeys(batch);
+        for (PendingWrite write : batch) {
+            String message = failed.get(write.seller);
+            if (message == null) {
+                notifyFlushed(write.seller, write.insert);
+            } else {
+                notifyFailed(write.seller, message);
+            }
+        }
+        return true;
+    }
+
+    private void add(long sequence, String writeKey, Seller seller) {
+        Object key = seller.getId() == null ? new Object() : seller.getId();
+        PendingWrite previous = pending.remove(key);
+        PendingWrite write = new PendingWrite(sequence, writeKey, seller);
+        if (previous != null) {
+            write.sequences.addAll(0, previous.sequences);
+            write.keys.addAll(0, previous.keys);
+        }
+        pending.put(key, write);
+    }
+
+    private void requeue(List<PendingWrite> batch) {
+        synchronized (this) {
+            batchesInFlight--;
+            Map<Object, PendingWrite> newer = new LinkedHashMap<>(pending);
+            pending.clear();
+            for (PendingWrite write : batch) {
+                if (write.insert) {
+                    write.seller.setId(null);
+                    pending.put(new Object(), write);
+                } else if (newer.containsKey(write.seller.getId())) {
+                    newer.get(write.seller.getId()).sequences.addAll(0, write.sequences);
+                    newer.get(write.seller.getId()).keys.addAll(0, write.keys);
+                } else {
+                    pending.put(write.seller.getId(), write);
+                }
+            }
+            pending.putAll(newer);
+        }
+    }
+
+    private void markDone(List<PendingWrite> writes, boolean flushed) {
+        List<Long> sequences = new ArrayList<>();
+        for (PendingWrite write : writes) {
+            sequences.addAll(write.sequences);
+        }
+        synchronized (this) {
+            if (flushed) {
+                batchesInFlight--;
+            }
+            if (journal == null) {
+                return;
+            }
+            try {
+                journal.appendDone(sequences);
+                // a batch taken out of pending is still only in the journal until its transaction commits
+                if (pending.isEmpty() && batchesInFlight == 0) {
+                    journal.truncate();
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not update the write-behind journal", e);
+            }
+        }
+    }
+
+    private void forgetKeys(List<PendingWrite> batch) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            appliedWriteDao.delete(keysOf(batch));
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.FINE, "Could not delete applied write-behind keys, they are only read on replay", e);
+        }
+    }
+
+    private void replayJournal() {
+        Map<Long, WriteBehindJournal.Entry> replayed;
+        try {
+            replayed = journal.open();
+        } catch (IOException e) {
+            throw new DBException("Could not open the write-behind journal: " + e.getMessage());
+        }
+        if (replayed.isEmpty()) {
+            return;
+        }
+        try {
+            List<String> keys = new ArrayList<>();
+            for (WriteBehindJournal.Entry entry : replayed.values()) {
+                if (entry.key != null) {
+                    keys.add(entry.key);
+                }
+            }
+            Set<String> applied = appliedWriteDao.findRecorded(keys);
+            List<Long> done = new ArrayList<>();
+            for (Map.Entry<Long, WriteBehindJournal.Entry> entry : replayed.entrySet()) {
+                nextSequence = entry.getKey() + 1;
+                if (applied.contains(entry.getValue().key)) {
+                    done.add(entry.getKey());
+                } else {
+                    add(entry.getKey(), entry.getValue().key, entry.getValue().seller);
+                }
+            }
+            if (!done.isEmpty()) {
+                journal.appendDone(done);
+                appliedWriteDao.delete(applied);
+                LOGGER.info("Skipping " + done.size() + " journaled seller writes that were already committed");
+            }
+            if (!pending.isEmpty()) {
+                LOGGER.info("Replaying " + pending.size() + " journaled seller writes");
+            }
+        } catch (IOException | RuntimeException e) {
+            journal.close();
+            throw new DBException("Could not replay the write-behind journal: " + e.getMessage());
+        }
+    }
+
+    private static List<String> keysOf(List<PendingWrite> writes) {
+        List<String> keys = new ArrayList<>();
+        for (PendingWrite write : writes) {
+            for (String key : write.keys) {
+                if (key != null) {
+                    keys.add(key);
+                }
+            }
+        }
+        return keys;
+    }
+
+    private void notifyFlushed(Seller seller, boolean inserted) {
+        for (WeakReference<WriteBehindListener<Seller>> reference : listeners) {
+            WriteBehindListener<Seller> listener = reference.get();
+            if (listener != null) {
+                listener.onFlushed(seller, inserted);
+            }
+        }
+    }
+
+    private void notifyFailed(Seller seller, String message) {
+        LOGGER.warning("Write-behind save of " + seller + " failed: " + message);
+        for (WeakReference<WriteBehindListener<Seller>> reference : listeners) {
+            WriteBehindListener<Seller> listener = reference.get();
+            if (listener != null) {
+                listener.onFailed(seller, message);
+            }
+        }
+    }
+
+    private static Seller copyOf(Seller seller) {
+        Seller copy = new Seller(seller.getId(), seller.getName(), seller.getEmail(), seller.getBirthDate(),
+                seller.getBaseSalary(), seller.getDepartment());
+        copy.setVersion(seller.getVersion());
+        return copy;
+    }
+
+    private static class PendingWrite {
+
+        private final Seller seller;
+        private final boolean insert;
+        private final Integer baseVersion;
+        private final List<Long> sequences = new ArrayList<>();
+        private final List<String> keys = new ArrayList<>();
+
+        PendingWrite(long sequence, String key, Seller seller) {
+            this.seller = seller;
+            this.insert = seller.getId() == null;
+            this.baseVersion = seller.getVersion();
+            this.sequences.add(sequence);
+            this.keys.add(key);
+        }
+    }
+}
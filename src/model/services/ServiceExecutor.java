@@ -0,0 +1,91 @@
+package model.services;
+
+import db.Db;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class ServiceExecutor {
+
+    private static final int QUEUE_CAPACITY = 1000;
+
+    private static Executor executor = null;
+
+    private static Executor bulkExecutor = null;
+
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return supplyAsync(supplier, getExecutor());
+    }
+
+    public static CompletableFuture<Void> runAsync(Runnable runnable) {
+        try {
+            return CompletableFuture.runAsync(runnable, getExecutor());
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // exports and imports hold a connection for minutes, so they get their own workers instead of starving the UI's
+    public static <T> CompletableFuture<T> supplyBulkAsync(Supplier<T> supplier) {
+        return supplyAsync(supplier, getBulkExecutor());
+    }
+
+    public static synchronized Executor getExecutor() {
+        if (executor == null) {
+            executor = createExecutor(Integer.parseInt(Db.getProperties().getProperty("pool.maxSize", "10")),
+                    "service-worker-");
+        }
+        return executor;
+    }
+
+    public static synchronized Executor getBulkExecutor() {
+        if (bulkExecutor == null) {
+            bulkExecutor = createExecutor(Integer.parseInt(Db.getProperties().getProperty("bulk.maxConcurrency", "1")),
+                    "bulk-worker-");
+        }
+        return bulkExecutor;
+    }
+
+    private static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, Executor target) {
+        try {
+            return CompletableFuture.supplyAsync(supplier, target);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static Executor createExecutor(int maxConcurrency, String threadPrefix) {
+        try {
+            ExecutorService virtualThreads = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            Semaphore permits = new Semaphore(maxConcurrency);
+            return task -> virtualThreads.execute(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadCount = new AtomicInteger();
+            ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency,
+                    60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                        Thread thread = new Thread(runnable, threadPrefix + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            threadPoolExecutor.allowCoreThreadTimeOut(true);
+            return threadPoolExecutor;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package model.services;
+
+import model.dao.SyncState;
+
+import java.util.Collections;
+import java.util.List;
+
+public class Snapshot<T> {
+
+    private final List<T> rows;
+    private final SyncState syncState;
+
+    public Snapshot(List<T> rows, SyncState syncState) {
+        this.rows = Collections.unmodifiableList(rows);
+        this.syncState = syncState;
+    }
+
+    public List<T> getRows() {
+        return rows;
+    }
+
+    public SyncState getSyncState() {
+        return syncState;
+    }
+
+    @Override
+    public String toString() {
+        return "Snapshot{" +
+                "rows=" + rows.size() +
+                ", syncState=" + syncState +
+                '}';
+    }
+}
@@ -0,0 +1,60 @@
+package model.services;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+public class ValidationRules<T> {
+
+    private final Map<String, List<Validator.Rule<T>>> rulesByField = new LinkedHashMap<>();
+
+    public ValidationRules<T> check(String field, Predicate<T> test, String message) {
+        rulesByField.computeIfAbsent(field, key -> new ArrayList<>()).add(new Validator.Rule<>(test, message));
+        return this;
+    }
+
+    public ValidationRules<T> notNull(String field, Function<T, ?> getter, String message) {
+        return check(field, entity -> getter.apply(entity) != null, message);
+    }
+
+    public ValidationRules<T> notBlank(String field, Function<T, String> getter, String message) {
+        return check(field, entity -> !isBlank(getter.apply(entity)), message);
+    }
+
+    public ValidationRules<T> maxLength(String field, Function<T, String> getter, int maxLength, String message) {
+        return check(field, entity -> {
+            String value = getter.apply(entity);
+            return value == null || value.length() <= maxLength;
+        }, message);
+    }
+
+    public ValidationRules<T> positive(String field, Function<T, ? extends Number> getter, String message) {
+        return check(field, entity -> {
+            Number value = getter.apply(entity);
+            return value != null && value.doubleValue() > 0;
+        }, message);
+    }
+
+    public ValidationRules<T> email(String field, Function<T, String> getter, String message) {
+        return check(field, entity -> EmailMatcher.matches(getter.apply(entity)), message);
+    }
+
+    public Validator<T> compile() {
+        return new Validator<>(rulesByField);
+    }
+
+    static boolean isBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
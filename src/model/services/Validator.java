@@ -0,0 +1,85 @@
+package model.services;
+
+import model.exceptions.ValidationException;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+public final class Validator<T> {
+
+    private final String[] fields;
+    private final Rule<T>[][] rules;
+
+    @SuppressWarnings("unchecked")
+    Validator(Map<String, List<Rule<T>>> rulesByField) {
+        this.fields = rulesByField.keySet().toArray(new String[0]);
+        this.rules = (Rule<T>[][]) new Rule<?>[fields.length][];
+        for (int i = 0; i < fields.length; i++) {
+            this.rules[i] = rulesByField.get(fields[i]).toArray((Rule<T>[]) new Rule<?>[0]);
+        }
+    }
+
+    public boolean isValid(T entity) {
+        for (Rule<T>[] fieldRules : rules) {
+            for (Rule<T> rule : fieldRules) {
+                if (!rule.test.test(entity)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public Map<String, String> errors(T entity) {
+        Map<String, String> errors = null;
+        for (int i = 0; i < fields.length; i++) {
+            String message = firstFailure(rules[i], entity);
+            if (message != null) {
+                if (errors == null) {
+                    errors = new HashMap<>();
+                }
+                errors.put(fields[i], message);
+            }
+        }
+        return errors == null ? Collections.emptyMap() : errors;
+    }
+
+    public void validate(T entity) {
+        ValidationException validationException = null;
+        for (int i = 0; i < fields.length; i++) {
+            String message = firstFailure(rules[i], entity);
+            if (message != null) {
+                if (validationException == null) {
+                    validationException = new ValidationException("Error validation");
+                }
+                validationException.addErrorMessage(fields[i], message);
+            }
+        }
+        if (validationException != null) {
+            throw validationException;
+        }
+    }
+
+    private static <T> String firstFailure(Rule<T>[] fieldRules, T entity) {
+        for (Rule<T> rule : fieldRules) {
+            if (!rule.test.test(entity)) {
+                return rule.message;
+            }
+        }
+        return null;
+    }
+
+    static final class Rule<T> {
+
+        private final Predicate<T> test;
+        private final String message;
+
+        Rule(Predicate<T> test, String message) {
+            this.test = test;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package model.services;
+
+import model.entities.Department;
+import model.entities.Seller;
+
+public class Validators {
+
+    public static final Validator<Seller> SELLER = new ValidationRules<Seller>()
+            .notBlank("name", Seller::getName, "Field can't be empty")
+            .email("email", Seller::getEmail, "Invalid value")
+            .positive("baseSalary", Seller::getBaseSalary, "Value must be greater than zero")
+            .notNull("birthDate", Seller::getBirthDate, "Field can't be empty")
+            .compile();
+
+    public static final Validator<Department> DEPARTMENT = new ValidationRules<Department>()
+            .notBlank("name", Department::getName, "Field can't be empty")
+            .compile();
+
+    public static boolean isEmailValid(String email) {
+        return EmailMatcher.matches(email);
+    }
+}
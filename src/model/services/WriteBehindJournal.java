@@ -0,0 +1,156 @@
+package model.services;
+
+import model.entities.Department;
+import model.entities.Seller;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+class WriteBehindJournal {
+
+    private static final String WRITE = "W";
+    private static final String DONE = "D";
+
+    private final Path path;
+    private final boolean sync;
+    private FileChannel channel;
+
+    WriteBehindJournal(Path path, boolean sync) {
+        this.path = path;
+        this.sync = sync;
+    }
+
+    synchronized Map<Long, Entry> open() throws IOException {
+        Map<Long, Entry> pending = new TreeMap<>();
+        if (Files.exists(path)) {
+            Set<Long> done = new HashSet<>();
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                String[] fields = line.split("\t", -1);
+                try {
+                    if (fields[0].equals(WRITE) && fields.length == 11) {
+                        pending.put(Long.parseLong(fields[1]), new Entry(fields[2], parseSeller(fields, 3)));
+                    } else if (fields[0].equals(WRITE) && fields.length == 10) {
+                        // written before writes carried a key, replayed without the applied check
+                        pending.put(Long.parseLong(fields[1]), new Entry(null, parseSeller(fields, 2)));
+                    } else if (fields[0].equals(DONE) && fields.length == 2) {
+                        done.add(Long.parseLong(fields[1]));
+                    }
+                } catch (RuntimeException e) {
+                    // a torn last line from a crash mid-append, the write never completed
+                }
+            }
+            pending.keySet().removeAll(done);
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        return pending;
+    }
+
+    synchronized void appendWrite(long sequence, String key, Seller seller) throws IOException {
+        Department department = seller.getDepartment();
+        append(String.join("\t", WRITE, String.valueOf(sequence), key,
+                seller.getId() == null ? "" : seller.getId().toString(),
+                seller.getVersion() == null ? "" : seller.getVersion().toString(),
+                escape(seller.getName()), escape(seller.getEmail()),
+                seller.getBirthDate() == null ? "" : seller.getBirthDate().toString(),
+                seller.getBaseSalary() == null ? "" : seller.getBaseSalary().toString(),
+                department == null || department.getId() == null ? "" : department.getId().toString(),
+                department == null ? "" : escape(department.getName())));
+    }
+
+    synchronized void appendDone(List<Long> sequences) throws IOException {
+        List<String> lines = new ArrayList<>(sequences.size());
+        for (Long sequence : sequences) {
+            lines.add(DONE + "\t" + sequence);
+        }
+        append(String.join("\n", lines));
+    }
+
+    synchronized void truncate() throws IOException {
+        channel.truncate(0);
+        if (sync) {
+            channel.force(false);
+        }
+    }
+
+    synchronized void close() {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            // nothing left to write
+        }
+    }
+
+    private void append(String lines) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((lines + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (sync) {
+            channel.force(false);
+        }
+    }
+
+    private static Seller parseSeller(String[] fields, int from) {
+        Seller seller = new Seller();
+        seller.setId(fields[from].isEmpty() ? null : Integer.valueOf(fields[from]));
+        seller.setVersion(fields[from + 1].isEmpty() ? null : Integer.valueOf(fields[from + 1]));
+        seller.setName(unescape(fields[from + 2]));
+        seller.setEmail(unescape(fields[from + 3]));
+        seller.setBirthDate(fields[from + 4].isEmpty() ? null : LocalDate.parse(fields[from + 4]));
+        seller.setBaseSalary(fields[from + 5].isEmpty() ? null : Double.valueOf(fields[from + 5]));
+        if (!fields[from + 6].isEmpty()) {
+            seller.setDepartment(new Department(Integer.valueOf(fields[from + 6]), unescape(fields[from + 7])));
+        }
+        return seller;
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "\\0";
+        }
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        if (value.equals("\\0")) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                builder.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    static class Entry {
+
+        final String key;
+        final Seller seller;
+
+        Entry(String key, Seller seller) {
+            this.key = key;
+            this.seller = seller;
+        }
+    }
+}
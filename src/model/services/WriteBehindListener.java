@@ -0,0 +1,8 @@
+package model.services;
+
+public interface WriteBehindListener<T> {
+
+    void onFlushed(T entity, boolean inserted);
+    void onFailed(T entity, String message);
+
+}